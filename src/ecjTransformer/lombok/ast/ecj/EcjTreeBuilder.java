@@ -49,6 +49,7 @@ import lombok.ast.Position;
 import lombok.ast.RawListAccessor;
 import lombok.ast.UnaryOperator;
 import lombok.ast.VariableReference;
+import lombok.ast.grammar.LineMap;
 import lombok.ast.grammar.SourceStructure;
 
 import org.eclipse.jdt.core.compiler.CategorizedProblem;
@@ -300,6 +301,9 @@ public class EcjTreeBuilder {
 		this.reporter = reporter;
 		this.silentProblemReporter = silentProblemReporter;
 		this.compilationResult = compilationResult;
+		if (compilationResult.lineSeparatorPositions == null) {
+			compilationResult.lineSeparatorPositions = source.getLineMap().getLineSeparatorEnds();
+		}
 	}
 	
 	public EcjTreeBuilder(String rawInput, ProblemReporter reporter, ProblemReporter silentProblemReporter, CompilationResult compilationResult) {
@@ -309,6 +313,9 @@ public class EcjTreeBuilder {
 		this.reporter = reporter;
 		this.silentProblemReporter = silentProblemReporter;
 		this.compilationResult = compilationResult;
+		if (compilationResult.lineSeparatorPositions == null && rawInput != null) {
+			compilationResult.lineSeparatorPositions = new LineMap(rawInput).getLineSeparatorEnds();
+		}
 	}
 	
 	private EcjTreeBuilder(EcjTreeBuilder parent) {
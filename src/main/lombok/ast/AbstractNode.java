@@ -21,36 +21,76 @@
  */
 package lombok.ast;
 
-import static java.util.Collections.emptyList;
-
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.AbstractList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.UnmodifiableIterator;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ast.printer.SourcePrinter;
 import lombok.ast.printer.TextFormatter;
 
 abstract class AbstractNode implements Node {
-	private Position position = Position.UNPLACED;
+	/* Kept as plain ints so the parser can place nodes without allocating; getPosition() builds the object form when asked. */
+	private int start = -1, end = -1;
 	@Getter private Node parent;
-	private List<Node> danglings;
-	private Map<String, Position> conversionPositions;
-	private Map<MessageKey, Message> messagesMap;
-	private List<Message> messages;
-	@Getter @Setter private Object nativeNode;
-	@Getter @Setter private PositionFactory positionFactory;
+	/* The index of this node in the list of its parent that holds it, kept up to date by ListAccessor; -1 if it isn't in a list. */
+	@Getter(AccessLevel.PACKAGE) @Setter(AccessLevel.PACKAGE) private int indexInParent = -1;
+	/* Everything most nodes never need lives here, so it only costs memory on the nodes that use it. */
+	private Extension extension;
+	
+	private static final class Extension {
+		Node generatedBy;
+		List<Node> danglings;
+		Map<String, Position> conversionPositions;
+		Map<MessageKey, Message> messagesMap;
+		List<Message> messages;
+		Object nativeNode;
+		PositionFactory positionFactory;
+	}
+	
+	private Extension extension() {
+		if (extension == null) extension = new Extension();
+		return extension;
+	}
+	
+	private PositionFactory positionFactory() {
+		return extension == null ? null : extension.positionFactory;
+	}
 	
 	@Override public boolean isGenerated() {
-		return position.getGeneratedBy() != null;
+		return getGeneratedBy() != null;
 	}
 	
 	@Override public Node getGeneratedBy() {
-		return position.getGeneratedBy();
+		return extension == null ? null : extension.generatedBy;
+	}
+	
+	@Override public Object getNativeNode() {
+		return extension == null ? null : extension.nativeNode;
+	}
+	
+	@Override public void setNativeNode(Object nativeNode) {
+		if (nativeNode != null || extension != null) extension().nativeNode = nativeNode;
+	}
+	
+	@Override public PositionFactory getPositionFactory() {
+		return positionFactory();
+	}
+	
+	@Override public void setPositionFactory(PositionFactory positionFactory) {
+		if (positionFactory != null || extension != null) extension().positionFactory = positionFactory;
 	}
 	
 	@Override public boolean hasParent() {
@@ -58,7 +98,19 @@ abstract class AbstractNode implements Node {
 	}
 	
 	@Override public List<Node> getChildren() {
-		return emptyList();
+		return new ChildList(this);
+	}
+	
+	@Override public int childCount() {
+		return 0;
+	}
+	
+	@Override public Node childAt(int index) {
+		throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + childCount());
+	}
+	
+	@Override public void forEachChild(ChildVisitor visitor) {
+		for (int i = 0; i < childCount(); i++) visitor.visitChild(childAt(i));
 	}
 	
 	@Override public boolean replace(Node replacement) throws AstException {
@@ -80,6 +132,7 @@ abstract class AbstractNode implements Node {
 	protected AbstractNode adopt(AbstractNode child) throws IllegalStateException {
 		child.ensureParentless();
 		child.parent = this;
+		child.indexInParent = -1;
 		return child;
 	}
 	
@@ -104,6 +157,7 @@ abstract class AbstractNode implements Node {
 	protected void disown(AbstractNode child) throws IllegalStateException {
 		ensureParentage(child);
 		child.parent = null;
+		child.indexInParent = -1;
 	}
 	
 	/**
@@ -122,15 +176,42 @@ abstract class AbstractNode implements Node {
 	
 	@Override public Node setPosition(Position position) {
 		if (position == null) throw new NullPointerException("position");
-		this.position = position;
+		this.start = position.getStart();
+		this.end = position.getEnd();
+		if (position.getGeneratedBy() != null || extension != null) extension().generatedBy = position.getGeneratedBy();
 		return this;
 	}
-
+	
+	@Override public Node setRange(int start, int end) {
+		this.start = start;
+		this.end = end;
+		return this;
+	}
+	
+	@Override public int getStart() {
+		if (isUnplaced() && positionFactory() != null) return getPosition().getStart();
+		return start;
+	}
+	
+	@Override public int getEnd() {
+		if (isUnplaced() && positionFactory() != null) return getPosition().getEnd();
+		return end;
+	}
+	
 	@Override public Position getPosition() {
-		if (position == Position.UNPLACED && positionFactory != null) {
-			position = positionFactory.getPosition(this);
+		Node generatedBy = getGeneratedBy();
+		if (isUnplaced() && generatedBy == null) {
+			PositionFactory positionFactory = positionFactory();
+			if (positionFactory == null) return Position.UNPLACED;
+			Position position = positionFactory.getPosition(this);
+			setPosition(position);
+			return position;
 		}
-		return position;
+		return new Position(start, end, generatedBy);
+	}
+	
+	private boolean isUnplaced() {
+		return start == -1 && end == -1;
 	}
 
 	@Override public String toString() {
@@ -152,57 +233,127 @@ abstract class AbstractNode implements Node {
 	
 	void addDanglingNode(Node dangling) {
 		if (dangling == null) return;
-		if (danglings == null) danglings = Lists.newArrayList();
-		danglings.add(dangling);
+		Extension e = extension();
+		if (e.danglings == null) e.danglings = Lists.newArrayList();
+		e.danglings.add(dangling);
 	}
 	
 	void removeDanglingNode(Node dangling) {
-		if (danglings != null) danglings.remove(dangling);
+		if (extension != null && extension.danglings != null) extension.danglings.remove(dangling);
 	}
 	
 	List<Node> getDanglingNodes() {
-		return danglings == null ? Collections.<Node>emptyList() : Collections.unmodifiableList(danglings);
+		if (extension == null || extension.danglings == null) return Collections.emptyList();
+		return Collections.unmodifiableList(extension.danglings);
 	}
 	
 	void addConversionPositionInfo(String key, Position position) {
-		if (conversionPositions == null) conversionPositions = Maps.newHashMap();
-		conversionPositions.put(key, position);
+		Extension e = extension();
+		if (e.conversionPositions == null) e.conversionPositions = Maps.newHashMap();
+		e.conversionPositions.put(key, position);
 	}
 	
 	Position getConversionPositionInfo(String key) {
-		if (conversionPositions == null) return null;
-		return conversionPositions.get(key);
+		if (extension == null || extension.conversionPositions == null) return null;
+		return extension.conversionPositions.get(key);
 	}
 	
 	public Node addMessage(Message message) {
-		if (messagesMap == null) {
-			messagesMap = Maps.newHashMap();
-			messages = Lists.newArrayList();
+		Extension e = extension();
+		if (e.messagesMap == null) {
+			e.messagesMap = Maps.newHashMap();
+			e.messages = Lists.newArrayList();
 		}
 		
 		if (message.getKey() == null) {
-			messages.add(message);
+			e.messages.add(message);
 		} else {
-			if (!messagesMap.containsKey(message.getKey())) {
-				messagesMap.put(message.getKey(), message);
-				messages.add(message);
+			if (!e.messagesMap.containsKey(message.getKey())) {
+				e.messagesMap.put(message.getKey(), message);
+				e.messages.add(message);
 			}
 		}
 		return this;
 	}
 	
 	public boolean hasMessage(String key) {
-		if (messagesMap == null) return false;
-		return messagesMap.containsKey(key);
+		if (extension == null || extension.messagesMap == null) return false;
+		return extension.messagesMap.containsKey(key);
 	}
 	
 	public List<Message> getMessages() {
-		return messages == null ? Collections.<Message>emptyList() : Collections.unmodifiableList(messages);
+		if (extension == null || extension.messages == null) return Collections.emptyList();
+		return Collections.unmodifiableList(extension.messages);
+	}
+	
+	/**
+	 * Writes this node and everything below it to {@code out}. Read it back with the {@code readFrom} method of the node's class,
+	 * or with a {@link NodeReader}.
+	 * 
+	 * @see NodeWriter
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		new NodeWriter(out).writeNode(this);
+	}
+	
+	/**
+	 * Writes the fields of this node (not its position) for {@link NodeWriter}; implementations are generated.
+	 */
+	void writeFields(NodeWriter out) throws IOException {
+		throw new IOException("Can't serialize node of type " + getClass().getName());
+	}
+	
+	/**
+	 * Reads back the fields written by {@link #writeFields(NodeWriter)} into this freshly created node.
+	 */
+	void readFields(NodeReader in) throws IOException {
+		throw new IOException("Can't deserialize node of type " + getClass().getName());
+	}
+	
+	private static final class ChildList extends AbstractList<Node> implements RandomAccess {
+		private final Node node;
+		
+		ChildList(Node node) {
+			this.node = node;
+		}
+		
+		@Override public Node get(int index) {
+			return node.childAt(index);
+		}
+		
+		@Override public int size() {
+			return node.childCount();
+		}
+		
+		/* Counts the children once, rather than on every hasNext() like AbstractList's iterator. */
+		@Override public Iterator<Node> iterator() {
+			final int count = node.childCount();
+			return new UnmodifiableIterator<Node>() {
+				private int next;
+				
+				@Override public boolean hasNext() {
+					return next < count;
+				}
+				
+				@Override public Node next() {
+					if (next >= count) throw new NoSuchElementException();
+					return node.childAt(next++);
+				}
+			};
+		}
 	}
 	
 	abstract static class WithParens extends AbstractNode implements Expression {
 		private List<Position> parensPositions = Lists.newArrayList();
 		
+		@Override void writeFields(NodeWriter out) throws IOException {
+			out.writePositions(parensPositions);
+		}
+		
+		@Override void readFields(NodeReader in) throws IOException {
+			in.readPositions(parensPositions);
+		}
+		
 		@Override
 		public boolean needsParentheses() {
 			return false;
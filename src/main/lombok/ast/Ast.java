@@ -30,7 +30,7 @@ public class Ast {
 	 */
 	public static Node setAllPositions(Node node, Position position) {
 		node.setPosition(position);
-		for (Node child : node.getChildren()) setAllPositions(child, position);
+		for (int i = 0, count = node.childCount(); i < count; i++) setAllPositions(node.childAt(i), position);
 		return node;
 	}
 	
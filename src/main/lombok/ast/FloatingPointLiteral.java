@@ -21,6 +21,9 @@
  */
 package lombok.ast;
 
+import java.io.DataInput;
+import java.io.IOException;
+
 public class FloatingPointLiteral extends AbstractNode.WithParens implements Literal, Expression, DescribedNode {
 	private Double value;
 	private String rawValue;
@@ -77,6 +80,28 @@ public class FloatingPointLiteral extends AbstractNode.WithParens implements Lit
 		return result;
 	}
 	
+	@Override void writeFields(NodeWriter out) throws IOException {
+		super.writeFields(out);
+		out.writeBoxedDouble(value);
+		out.writeString(rawValue);
+		out.writeString(errorReasonForValue);
+		out.writeBoolean(markedAsFloat);
+		out.writeEnum(literalType);
+	}
+	
+	@Override void readFields(NodeReader in) throws IOException {
+		super.readFields(in);
+		value = in.readBoxedDouble();
+		rawValue = in.readString();
+		errorReasonForValue = in.readString();
+		markedAsFloat = in.readBoolean();
+		literalType = in.readEnum(LiteralType.class);
+	}
+	
+	public static FloatingPointLiteral readFrom(DataInput in) throws IOException {
+		return NodeReader.read(in, FloatingPointLiteral.class);
+	}
+	
 	public FloatingPointLiteral astDoubleValue(double value) {
 		checkSpecialValues(value);
 		this.markedAsFloat = false;
@@ -21,6 +21,8 @@
  */
 package lombok.ast;
 
+import java.io.DataInput;
+import java.io.IOException;
 import java.math.BigInteger;
 
 public class IntegralLiteral extends AbstractNode.WithParens implements Literal, Expression, DescribedNode {
@@ -118,6 +120,28 @@ public class IntegralLiteral extends AbstractNode.WithParens implements Literal,
 		return result;
 	}
 	
+	@Override void writeFields(NodeWriter out) throws IOException {
+		super.writeFields(out);
+		out.writeBoxedLong(value);
+		out.writeString(rawValue);
+		out.writeString(errorReasonForValue);
+		out.writeBoolean(markedAsLong);
+		out.writeEnum(literalType);
+	}
+	
+	@Override void readFields(NodeReader in) throws IOException {
+		super.readFields(in);
+		value = in.readBoxedLong();
+		rawValue = in.readString();
+		errorReasonForValue = in.readString();
+		markedAsLong = in.readBoolean();
+		literalType = in.readEnum(LiteralType.class);
+	}
+	
+	public static IntegralLiteral readFrom(DataInput in) throws IOException {
+		return NodeReader.read(in, IntegralLiteral.class);
+	}
+	
 	
 	public IntegralLiteral astIntValue(int value) {
 		this.value = value & 0xFFFFFFFFL;	//Suppress sign extension.
@@ -27,16 +27,25 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 
+/**
+ * Holds the children in one of the list-valued fields of a node. Storage is allocated lazily: an empty list holds nothing, a list with one
+ * element keeps it in a single slot, and only a second element (or a call to {@link #backingList()}) creates an actual list. The raw and
+ * strict views are created on first use.
+ */
 class ListAccessor<T extends Node, P extends Node> {
+	/* Only set when the list is in list mode; otherwise 'single' holds the one element, or null for an empty list. */
 	private List<AbstractNode> list;
+	private AbstractNode single;
 	private final AbstractNode parent;
 	private final Class<T> tClass;
 	private final String listName;
 	private final P returnAsParent;
 	private boolean escaped;
+	/* The views are made on first use, and then kept. */
+	private RawView raw;
+	private StrictView strict;
 	
 	private ListAccessor(AbstractNode parent, Class<T> tClass, String listName, P returnAsParent) {
-		this.list = new ArrayList<AbstractNode>();
 		this.parent = parent;
 		this.tClass = tClass;
 		this.listName = listName;
@@ -60,6 +69,10 @@ class ListAccessor<T extends Node, P extends Node> {
 				throw new UnsupportedOperationException();
 			}
 			
+			@Override public P addAll(int index, T... node) {
+				throw new UnsupportedOperationException();
+			}
+			
 			@Override public P addToEnd(T... node) {
 				throw new UnsupportedOperationException();
 			}
@@ -132,6 +145,10 @@ class ListAccessor<T extends Node, P extends Node> {
 				throw new UnsupportedOperationException();
 			}
 			
+			@Override public P addAll(int index, Node... node) {
+				throw new UnsupportedOperationException();
+			}
+			
 			@Override public P addToEnd(Node... node) {
 				throw new UnsupportedOperationException();
 			}
@@ -194,67 +211,115 @@ class ListAccessor<T extends Node, P extends Node> {
 		};
 	}
 	
-	private RawListAccessor<T, P> raw = new RawListAccessor<T, P>() {
-		@Override
-		public P up() {
+	int size() {
+		if (list != null) return list.size();
+		return single == null ? 0 : 1;
+	}
+	
+	AbstractNode get(int index) {
+		if (list != null) return list.get(index);
+		if (index == 0 && single != null) return single;
+		throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+	}
+	
+	void insert(int index, AbstractNode node) {
+		if (list == null) {
+			if (single == null && index == 0) {
+				node.setIndexInParent(0);
+				single = node;
+				return;
+			}
+			backingList();
+		}
+		fixEscaped();
+		list.add(index, node);
+		renumberFrom(index);
+	}
+	
+	void insertAll(int index, List<AbstractNode> nodes) {
+		if (nodes.size() == 1) {
+			insert(index, nodes.get(0));
+			return;
+		}
+		if (nodes.isEmpty()) return;
+		backingList();
+		fixEscaped();
+		list.addAll(index, nodes);
+		renumberFrom(index);
+	}
+	
+	void set(int index, AbstractNode node) {
+		node.setIndexInParent(index);
+		if (list == null) {
+			if (index != 0 || single == null) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+			single = node;
+			return;
+		}
+		fixEscaped();
+		list.set(index, node);
+	}
+	
+	void removeAt(int index) {
+		if (list == null) {
+			if (index != 0 || single == null) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+			single = null;
+			return;
+		}
+		fixEscaped();
+		list.remove(index);
+		renumberFrom(index);
+	}
+	
+	/**
+	 * Every element knows its own index, so that looking one up is a single check. Shifting elements costs a pass over the tail anyway,
+	 * which is when the indices of that tail get updated.
+	 */
+	private void renumberFrom(int index) {
+		for (int i = index; i < list.size(); i++) list.get(i).setIndexInParent(i);
+	}
+	
+	void removeAll() {
+		list = null;
+		single = null;
+		escaped = false;
+	}
+	
+	private class RawView implements RawListAccessor<T, P> {
+		@Override public P up() {
 			return returnAsParent;
 		}
 		
-		@Override
-		public Node owner() {
+		@Override public Node owner() {
 			return parent;
 		}
 		
-		@Override
-		public void clear() {
-			if (escaped) {
-				list = new ArrayList<AbstractNode>();
-				escaped = false;
-			} else {
-				list.clear();
-			}
+		@Override public void clear() {
+			removeAll();
 		}
 		
-		@Override
-		public boolean isEmpty() {
-			return list.isEmpty();
+		@Override public boolean isEmpty() {
+			return ListAccessor.this.size() == 0;
 		}
 		
-		@Override
-		public int size() {
-			return list.size();
+		@Override public int size() {
+			return ListAccessor.this.size();
 		}
 		
-		@Override
-		public Node first() {
-			try {
-				return list.get(0);
-			} catch (IndexOutOfBoundsException e) {
-				return null;
-			}
+		@Override public Node first() {
+			return isEmpty() ? null : get(0);
 		}
 		
-		@Override
-		public Node last() {
-			try {
-				return list.get(list.size()-1);
-			} catch (IndexOutOfBoundsException e) {
-				return null;
-			}
+		@Override public Node last() {
+			return isEmpty() ? null : get(size() - 1);
 		}
 		
-		@Override
-		public boolean contains(Node source) {
+		@Override public boolean contains(Node source) {
 			if (source == null) return false;
 			if (source.getParent() != parent) return false;
-			for (int i = 0; i < list.size(); i++) {
-				if (list.get(i) == source) return true;
-			}
-			return false;
+			return indexOf(source) != -1;
 		}
 		
-		@Override
-		public P migrateAllFrom(RawListAccessor<?, ?> otherList) {
+		@Override public P migrateAllFrom(RawListAccessor<?, ?> otherList) {
 			while (!otherList.isEmpty()) {
 				AbstractNode n = (AbstractNode) otherList.first();
 				otherList.remove(n);
@@ -264,131 +329,114 @@ class ListAccessor<T extends Node, P extends Node> {
 			return returnAsParent;
 		}
 		
-		@Override
-		public P addToStart(Node... node) {
+		@Override public P addToStart(Node... node) {
 			for (int i = node.length - 1; i >= 0; i--) {
 				AbstractNode child = (AbstractNode)node[i];
 				if (child != null) {
 					parent.adopt(child);
-					fixEscaped();
-					list.add(0, child);
+					insert(0, child);
 				}
 			}
 			return returnAsParent;
 		}
 		
-		@Override
-		public P addToEnd(Node... node) {
+		@Override public P addToEnd(Node... node) {
 			for (Node n : node) {
 				AbstractNode child = (AbstractNode)n;
 				if (child != null) {
 					parent.adopt(child);
-					fixEscaped();
-					list.add(child);
+					insert(size(), child);
 				}
 			}
 			return returnAsParent;
 		}
 		
-		@Override
-		public P addBefore(Node ref, Node... node) {
-			if (ref == null) throw new NullPointerException("ref");
-			parent.ensureParentage((AbstractNode)ref);
-			
-			for (int i = 0; i < list.size(); i++) {
-				if (list.get(i) == ref) {
-					int j = 0;
-					for (Node n : node) {
-						AbstractNode child = (AbstractNode)n;
-						if (child != null) {
-							child.ensureParentless();
-							parent.adopt(child);
-							fixEscaped();
-							list.add(i + j, child);
-							j++;
-						}
-					}
-					return returnAsParent;
+		@Override public P addBefore(Node ref, Node... node) {
+			return addNear(ref, 0, node);
+		}
+		
+		@Override public P addAfter(Node ref, Node... node) {
+			return addNear(ref, 1, node);
+		}
+		
+		@Override public P addAll(int index, Node... node) {
+			if (index < 0 || index > size()) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+			List<AbstractNode> children = new ArrayList<AbstractNode>(node.length);
+			for (Node n : node) {
+				AbstractNode child = (AbstractNode)n;
+				if (child != null) {
+					child.ensureParentless();
+					children.add(child);
+				}
+			}
+			for (int i = 0; i < children.size(); i++) {
+				try {
+					parent.adopt(children.get(i));
+				} catch (IllegalStateException e) {
+					/* The same node was passed twice; leave everything as it was. */
+					for (int j = 0; j < i; j++) parent.disown(children.get(j));
+					throw e;
 				}
 			}
-			throw new IllegalStateException(listName + " does not contain: " + ref);
+			insertAll(index, children);
+			return returnAsParent;
 		}
 		
-		@Override
-		public P addAfter(Node ref, Node... node) {
+		private P addNear(Node ref, int offset, Node... node) {
 			if (ref == null) throw new NullPointerException("ref");
 			parent.ensureParentage((AbstractNode)ref);
 			
-			for (int i = 0; i < list.size(); i++) {
-				if (list.get(i) == ref) {
-					int j = 0;
-					for (Node n : node) {
-						AbstractNode child = (AbstractNode)n;
-						if (child != null) {
-							child.ensureParentless();
-							parent.adopt(child);
-							fixEscaped();
-							list.add(i + j + 1, child);
-							j++;
-						}
-					}
-					return returnAsParent;
+			int i = indexOf(ref);
+			if (i == -1) throw new IllegalStateException(listName + " does not contain: " + ref);
+			int j = 0;
+			for (Node n : node) {
+				AbstractNode child = (AbstractNode)n;
+				if (child != null) {
+					child.ensureParentless();
+					parent.adopt(child);
+					insert(i + j + offset, child);
+					j++;
 				}
 			}
-			
-			throw new IllegalStateException(listName + " does not contain: " + ref);
+			return returnAsParent;
 		}
 		
-		@Override
-		public boolean replace(Node source, Node replacement) throws NoSuchElementException {
+		@Override public boolean replace(Node source, Node replacement) throws NoSuchElementException {
 			if (source == null) return false;
 			if (source.getParent() != parent) return false;
 			if (replacement != null) ((AbstractNode)replacement).ensureParentless();
 			
-			for (int i = 0; i < list.size(); i++) {
-				if (list.get(i) == source) {
-					parent.disown((AbstractNode)source);
-					try {
-						if (replacement != null) parent.adopt((AbstractNode)replacement);
-					} catch (IllegalStateException e) {
-						parent.adopt((AbstractNode)source);
-						throw e;
-					}
-					fixEscaped();
-					if (replacement == null) list.remove(i);	//screws up for counter, but we return right after anyway, so it doesn't matter.
-					else list.set(i, (AbstractNode)replacement);
-					return true;
-				}
+			int i = indexOf(source);
+			if (i == -1) return false;
+			parent.disown((AbstractNode)source);
+			try {
+				if (replacement != null) parent.adopt((AbstractNode)replacement);
+			} catch (IllegalStateException e) {
+				parent.adopt((AbstractNode)source);
+				throw e;
 			}
-			
-			return false;
+			if (replacement == null) removeAt(i);
+			else set(i, (AbstractNode)replacement);
+			return true;
 		}
 		
-		@Override
-		public boolean remove(Node source) {
+		@Override public boolean remove(Node source) {
 			if (source == null) return false;
 			if (source.getParent() != parent) return false;
 			
-			for (int i = 0; i < list.size(); i++) {
-				if (list.get(i) == source) {
-					parent.disown((AbstractNode)source);
-					fixEscaped();
-					list.remove(i);
-					return true;
-				}
-			}
-			
-			return false;
+			int i = indexOf(source);
+			if (i == -1) return false;
+			parent.disown((AbstractNode)source);
+			removeAt(i);
+			return true;
 		}
 		
-		@Override
-		public StrictListAccessor<T, P> asStrictAccessor() {
-			return strict;
+		@Override public StrictListAccessor<T, P> asStrictAccessor() {
+			return asStrict();
 		}
 		
 		@Override public Iterator<Node> iterator() {
-			final Iterator<AbstractNode> it = list.iterator();
-			escaped = true;
+			final Iterator<AbstractNode> it = asIterable().iterator();
 			return new Iterator<Node>() {
 				@Override public boolean hasNext() {
 					return it.hasNext();
@@ -403,9 +451,9 @@ class ListAccessor<T extends Node, P extends Node> {
 				}
 			};
 		}
-	};
+	}
 	
-	private StrictListAccessor<T, P> strict = new StrictListAccessor<T, P>() {
+	private class StrictView implements StrictListAccessor<T, P> {
 		@Override public P up() {
 			return returnAsParent;
 		}
@@ -415,39 +463,35 @@ class ListAccessor<T extends Node, P extends Node> {
 		}
 		
 		@Override public void clear() {
-			if (escaped) {
-				list = new ArrayList<AbstractNode>();
-				escaped = false;
-			} else {
-				list.clear();
-			}
+			removeAll();
 		}
 		
 		@Override public boolean isEmpty() {
-			return list.isEmpty();
+			return ListAccessor.this.size() == 0;
 		}
 		
 		@Override public int size() {
-			return list.size();
+			return ListAccessor.this.size();
 		}
 		
 		@Override public T first() {
-			Node r = raw.first();
+			Node r = isEmpty() ? null : get(0);
 			if (!tClass.isInstance(r)) return null;
 			return tClass.cast(r);
 		}
 		
 		@Override public T last() {
-			Node r = raw.last();
+			Node r = isEmpty() ? null : get(size() - 1);
 			if (!tClass.isInstance(r)) return null;
 			return tClass.cast(r);
 		}
 		
 		@Override public boolean contains(Node source) {
-			return raw.contains(source);
+			return asRaw().contains(source);
 		}
 		
 		@Override public P migrateAllFrom(StrictListAccessor<? extends T, ?> otherList) {
+			RawListAccessor<T, P> raw = asRaw();
 			while (!otherList.isEmpty()) {
 				AbstractNode n = (AbstractNode) otherList.first();
 				otherList.remove(n);
@@ -458,26 +502,30 @@ class ListAccessor<T extends Node, P extends Node> {
 		}
 		
 		@Override public P addToStart(T... node) {
-			return raw.addToStart(node);
+			return asRaw().addToStart(node);
 		}
 		
 		@Override public P addToEnd(T... node) {
-			return raw.addToEnd(node);
+			return asRaw().addToEnd(node);
 		}
 		
 		@Override public P addBefore(Node ref, T... node) {
-			return raw.addBefore(ref, node);
+			return asRaw().addBefore(ref, node);
 		}
 		
 		@Override public P addAfter(Node ref, T... node) {
-			return raw.addAfter(ref, node);
+			return asRaw().addAfter(ref, node);
+		}
+		
+		@Override public P addAll(int index, T... node) {
+			return asRaw().addAll(index, node);
 		}
 		
 		@Override public void replace(Node source, T replacement) throws NoSuchElementException {
 			if (source == null) throw new NullPointerException();
 			if (source.getParent() != parent) throw new NoSuchElementException(listName + " is not the parent of: " + source);
 			
-			if (!raw.replace(source, replacement)) {
+			if (!asRaw().replace(source, replacement)) {
 				throw new NoSuchElementException(listName + " does not contain: " + source);
 			}
 		}
@@ -486,18 +534,17 @@ class ListAccessor<T extends Node, P extends Node> {
 			if (source == null) throw new NullPointerException();
 			if (source.getParent() != parent) throw new NoSuchElementException(listName + " is not the parent of: " + source);
 			
-			if (!raw.remove(source)) {
+			if (!asRaw().remove(source)) {
 				throw new NoSuchElementException(listName + " does not contain: " + source);
 			}
 		}
 		
 		@Override public RawListAccessor<T, P> asRawAccessor() {
-			return raw;
+			return asRaw();
 		}
 		
 		@Override public Iterator<T> iterator() {
-			final Iterator<AbstractNode> it = list.iterator();
-			escaped = true;
+			final Iterator<AbstractNode> it = asIterable().iterator();
 			
 			return new Iterator<T>() {
 				T next = null;
@@ -533,180 +580,60 @@ class ListAccessor<T extends Node, P extends Node> {
 				}
 			};
 		}
-	};
+	}
+	
+	/**
+	 * Returns the index of {@code node} in this list, or -1 if it isn't in it. A child of the same parent that sits in another field
+	 * carries an index into that other list, which is why the element at that index is checked.
+	 */
+	private int indexOf(Node node) {
+		if (!(node instanceof AbstractNode)) return -1;
+		int index = ((AbstractNode) node).getIndexInParent();
+		if (index < 0 || index >= size()) return -1;
+		return get(index) == node ? index : -1;
+	}
 	
 	static <T extends Node, P extends AbstractNode> ListAccessor<T, P> of(P parent, Class<T> tClass, String listName) {
 		return new ListAccessor<T, P>(parent, tClass, listName, parent);
 	}
 	
+	/**
+	 * Returns an accessor for the same list that hands out {@code returnThisAsParent} from its chaining methods.
+	 */
 	<Q extends Node> ListAccessor<T, Q> wrap(final Q returnThisAsParent) {
 		final ListAccessor<T, P> original = this;
 		
 		return new ListAccessor<T, Q>(parent, tClass, listName, returnThisAsParent) {
-			final RawListAccessor<T, Q> raw = new RawListAccessor<T, Q>() {
-				final RawListAccessor<T, P> orig = original.asRaw();
-				
-				@Override public Iterator<Node> iterator() {
-					return orig.iterator();
-				}
-				
-				@Override public Q up() {
-					return returnThisAsParent;
-				}
-				
-				@Override public Node owner() {
-					return orig.owner();
-				}
-				
-				@Override public void clear() {
-					orig.clear();
-				}
-				
-				@Override public boolean isEmpty() {
-					return orig.isEmpty();
-				}
-				
-				@Override public int size() {
-					return orig.size();
-				}
-				
-				@Override public Node first() {
-					return orig.first();
-				}
-				
-				@Override public Node last() {
-					return orig.last();
-				}
-				
-				@Override public boolean contains(Node source) {
-					return orig.contains(source);
-				}
-				
-				@Override public Q migrateAllFrom(RawListAccessor<?, ?> otherList) {
-					orig.migrateAllFrom(otherList);
-					return returnThisAsParent;
-				}
-				
-				@Override public Q addToStart(Node... node) {
-					orig.addToStart(node);
-					return returnThisAsParent;
-				}
-				
-				@Override public Q addToEnd(Node... node) {
-					orig.addToEnd(node);
-					return returnThisAsParent;
-				}
-				
-				@Override public Q addBefore(Node ref, Node... node) {
-					orig.addBefore(ref, node);
-					return returnThisAsParent;
-				}
-				
-				@Override public Q addAfter(Node ref, Node... node) {
-					orig.addAfter(ref, node);
-					return returnThisAsParent;
-				}
-				
-				@Override public boolean replace(Node source, Node replacement) {
-					return orig.replace(source, replacement);
-				}
-				
-				@Override public boolean remove(Node source) {
-					return orig.remove(source);
-				}
-				
-				@Override public StrictListAccessor<T, Q> asStrictAccessor() {
-					return asStrict();
-				}
-			};
-			
-			final StrictListAccessor<T, Q> strict = new StrictListAccessor<T, Q>() {
-				final StrictListAccessor<T, P> orig = original.asStrict();
-				
-				@Override public Iterator<T> iterator() {
-					return orig.iterator();
-				}
-				
-				@Override public Q up() {
-					return returnThisAsParent;
-				}
-				
-				@Override public Node owner() {
-					return orig.owner();
-				}
-				
-				@Override public void clear() {
-					orig.clear();
-				}
-				
-				@Override public boolean isEmpty() {
-					return orig.isEmpty();
-				}
-				
-				@Override public int size() {
-					return orig.size();
-				}
-				
-				@Override public T first() {
-					return orig.first();
-				}
-				
-				@Override public T last() {
-					return orig.last();
-				}
-				
-				@Override public boolean contains(Node source) {
-					return orig.contains(source);
-				}
-				
-				@Override public Q migrateAllFrom(StrictListAccessor<? extends T, ?> otherList) {
-					orig.migrateAllFrom(otherList);
-					return returnThisAsParent;
-				}
-				
-				@Override public Q addToStart(T... node) {
-					orig.addToStart(node);
-					return returnThisAsParent;
-				}
-				
-				@Override public Q addToEnd(T... node) {
-					orig.addToEnd(node);
-					return returnThisAsParent;
-				}
-				
-				@Override public Q addBefore(Node ref, T... node) {
-					orig.addBefore(ref, node);
-					return returnThisAsParent;
-				}
-				
-				@Override public Q addAfter(Node ref, T... node) {
-					orig.addAfter(ref, node);
-					return returnThisAsParent;
-				}
-				
-				@Override public void replace(Node source, T replacement) throws NoSuchElementException {
-					orig.replace(source, replacement);
-				}
-				
-				@Override public void remove(Node source) throws NoSuchElementException {
-					orig.remove(source);
-				}
-				
-				@Override public RawListAccessor<T, Q> asRawAccessor() {
-					return asRaw();
-				}
-			};
-			
 			@Override <Q2 extends Node> ListAccessor<T, Q2> wrap(Q2 returnThisAsParent) {
 				return original.wrap(returnThisAsParent);
 			}
 			
-			@Override StrictListAccessor<T, Q> asStrict() {
-				return strict;
+			@Override int size() {
+				return original.size();
+			}
+			
+			@Override AbstractNode get(int index) {
+				return original.get(index);
 			}
 			
-			@Override RawListAccessor<T, Q> asRaw() {
-				return raw;
+			@Override void insert(int index, AbstractNode node) {
+				original.insert(index, node);
+			}
+			
+			@Override void insertAll(int index, List<AbstractNode> nodes) {
+				original.insertAll(index, nodes);
+			}
+			
+			@Override void set(int index, AbstractNode node) {
+				original.set(index, node);
+			}
+			
+			@Override void removeAt(int index) {
+				original.removeAt(index);
+			}
+			
+			@Override void removeAll() {
+				original.removeAll();
 			}
 			
 			@Override Iterable<AbstractNode> asIterable() {
@@ -720,19 +647,33 @@ class ListAccessor<T extends Node, P extends Node> {
 	}
 	
 	StrictListAccessor<T, P> asStrict() {
+		if (strict == null) strict = new StrictView();
 		return strict;
 	}
 	
 	RawListAccessor<T, P> asRaw() {
+		if (raw == null) raw = new RawView();
 		return raw;
 	}
 	
+	/**
+	 * Returns the elements as they are right now; changes made to the list later on don't show up in the result.
+	 */
 	Iterable<AbstractNode> asIterable() {
+		if (list == null) return single == null ? Collections.<AbstractNode>emptyList() : Collections.singletonList(single);
 		escaped = true;
 		return list;
 	}
 	
+	/**
+	 * Returns the list that holds the elements, creating it if this accessor didn't need one yet.
+	 */
 	List<AbstractNode> backingList() {
+		if (list == null) {
+			list = new ArrayList<AbstractNode>(4);
+			if (single != null) list.add(single);
+			single = null;
+		}
 		return list;
 	}
 }
@@ -36,8 +36,32 @@ public interface Node {
 	
 	boolean hasParent();
 	
+	/**
+	 * Returns a read-only view of the direct children of this node, in order. The view follows later changes to this node; copy it first
+	 * if you intend to change this node while going through its children.
+	 * 
+	 * @see #childCount()
+	 * @see #childAt(int)
+	 */
 	List<Node> getChildren();
 	
+	/**
+	 * Returns the number of direct children of this node. Unlike {@code getChildren().size()}, this never creates an object.
+	 */
+	int childCount();
+	
+	/**
+	 * Returns the direct child at {@code index}, in the same order as {@link #getChildren()}.
+	 * 
+	 * @throws IndexOutOfBoundsException If {@code index} is negative or not less than {@link #childCount()}.
+	 */
+	Node childAt(int index);
+	
+	/**
+	 * Hands each direct child of this node to {@code visitor}, in order, without creating a list or iterator.
+	 */
+	void forEachChild(ChildVisitor visitor);
+	
 	/**
 	 * If the provided <em>child</em> node is a child of this node, the child/parent link will be deleted. The replacement node,
 	 * if it is non-null, will take its place, and a new child/parent link will be created between this node and the replacement.
@@ -76,6 +100,22 @@ public interface Node {
 	
 	Node setPosition(Position position);
 	
+	/**
+	 * Moves this node to the given range without touching {@link #getGeneratedBy()}. Unlike {@link #setPosition(Position)}
+	 * this doesn't need a {@code Position} object, which makes it the cheap choice when placing many nodes.
+	 */
+	Node setRange(int start, int end);
+	
+	/**
+	 * Same as {@code getPosition().getStart()}, but doesn't create a {@code Position} object.
+	 */
+	int getStart();
+	
+	/**
+	 * Same as {@code getPosition().getEnd()}, but doesn't create a {@code Position} object.
+	 */
+	int getEnd();
+	
 	void accept(AstVisitor visitor);
 	
 	Node copy();
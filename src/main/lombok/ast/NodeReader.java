@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
+
+/**
+ * Reads node trees written by a {@link NodeWriter}. The reader must be used to read back everything the writer wrote, in the same order,
+ * as strings and nodes that were written before are referred to by number.
+ */
+public final class NodeReader {
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final ConcurrentMap<String, Class<?>> NODE_CLASSES = new MapMaker().makeMap();
+	
+	private final DataInput in;
+	private final List<String> strings = Lists.newArrayList();
+	private final List<Node> nodes = Lists.newArrayList();
+	
+	public NodeReader(DataInput in) {
+		this.in = in;
+	}
+	
+	/**
+	 * Reads a single node tree written by {@link AbstractNode#writeTo(java.io.DataOutput) writeTo}.
+	 * 
+	 * @throws IOException If the node that was read isn't a {@code type}.
+	 */
+	public static <N extends Node> N read(DataInput in, Class<N> type) throws IOException {
+		Node node = new NodeReader(in).readNode();
+		if (!type.isInstance(node)) throw new IOException("Expected a " + type.getSimpleName() + " but read: " + (node == null ? "null" : node.getClass().getSimpleName()));
+		return type.cast(node);
+	}
+	
+	/**
+	 * @throws IOException If reading fails, or the data is corrupt or refers to node types that don't exist in this version of lombok.ast.
+	 */
+	public Node readNode() throws IOException {
+		int tag = readVarInt();
+		if (tag == NodeWriter.TAG_NULL) return null;
+		if (tag == NodeWriter.TAG_REFERENCE) {
+			int id = readVarInt();
+			if (id >= nodes.size()) throw new IOException("Reference to unknown node: " + id);
+			return nodes.get(id);
+		}
+		if (tag != NodeWriter.TAG_NODE) throw new IOException("Unknown node tag: " + tag);
+		
+		AbstractNode node = newNode(readString());
+		nodes.add(node);
+		int start = readSignedVarInt();
+		int end = start + readSignedVarInt();
+		node.setRange(start, end);
+		node.readFields(this);
+		return node;
+	}
+	
+	/**
+	 * Reads a node that is about to be adopted: it can't be a reference to a node that was read before.
+	 */
+	Node readChild() throws IOException {
+		int count = nodes.size();
+		Node child = readNode();
+		if (child != null && nodes.size() == count) throw new IOException("Child node was written twice: " + child.getClass().getName());
+		return child;
+	}
+	
+	void readChildren(RawListAccessor<?, ?> list) throws IOException {
+		int size = readVarInt();
+		for (int i = 0; i < size; i++) {
+			Node child = readChild();
+			if (child == null) throw new IOException("null element in list");
+			list.addToEnd(child);
+		}
+	}
+	
+	public Position readPosition() throws IOException {
+		int start = readSignedVarInt();
+		int end = start + readSignedVarInt();
+		return start == Position.UNPLACED.getStart() && end == Position.UNPLACED.getEnd() ? Position.UNPLACED : new Position(start, end);
+	}
+	
+	void readPositions(List<Position> positions) throws IOException {
+		positions.clear();
+		int size = readVarInt();
+		for (int i = 0; i < size; i++) positions.add(readPosition());
+	}
+	
+	public String readString() throws IOException {
+		int id = readVarInt();
+		if (id == 0) return null;
+		if (id <= strings.size()) return strings.get(id - 1);
+		if (id != strings.size() + 1) throw new IOException("Reference to unknown string: " + id);
+		byte[] bytes = new byte[readVarInt()];
+		in.readFully(bytes);
+		String value = new String(bytes, UTF_8);
+		strings.add(value);
+		return value;
+	}
+	
+	public int readVarInt() throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = in.readByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) return value;
+		}
+		throw new IOException("Malformed variable-length integer");
+	}
+	
+	public int readSignedVarInt() throws IOException {
+		int value = readVarInt();
+		return (value >>> 1) ^ -(value & 1);
+	}
+	
+	boolean readBoolean() throws IOException {
+		return in.readBoolean();
+	}
+	
+	Boolean readBoxedBoolean() throws IOException {
+		int b = in.readByte();
+		return b == 0 ? null : Boolean.valueOf(b == 2);
+	}
+	
+	Character readBoxedCharacter() throws IOException {
+		return in.readBoolean() ? Character.valueOf(in.readChar()) : null;
+	}
+	
+	Long readBoxedLong() throws IOException {
+		return in.readBoolean() ? Long.valueOf(in.readLong()) : null;
+	}
+	
+	Double readBoxedDouble() throws IOException {
+		return in.readBoolean() ? Double.valueOf(in.readDouble()) : null;
+	}
+	
+	<E extends Enum<E>> E readEnum(Class<E> type) throws IOException {
+		String name = readString();
+		if (name == null) return null;
+		try {
+			return Enum.valueOf(type, name);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Unknown constant " + name + " for " + type.getName());
+		}
+	}
+	
+	private static AbstractNode newNode(String name) throws IOException {
+		Class<?> type = NODE_CLASSES.get(name);
+		if (type == null) {
+			try {
+				type = Class.forName(NodeWriter.NODE_PACKAGE + name, true, Node.class.getClassLoader());
+			} catch (ClassNotFoundException e) {
+				throw new IOException("Unknown node type: " + name);
+			}
+			if (!NodeWriter.isNodeClass(type)) throw new IOException("Not a node type: " + name);
+			NODE_CLASSES.put(name, type);
+		}
+		
+		try {
+			return (AbstractNode) type.newInstance();
+		} catch (Exception e) {
+			throw new IOException("Can't create node of type " + name + ": " + e);
+		}
+	}
+}
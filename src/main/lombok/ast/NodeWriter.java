@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes node trees to a {@link DataOutput} in a compact form that {@link NodeReader} turns back into equal trees.
+ * 
+ * Each node is written as its class name, its position and then its own fields; the code that writes the fields is generated along with
+ * the node classes. Strings go through a table that is built up while writing, so repeated identifiers and class names only cost a small
+ * number after their first use. Numbers and positions are written as variable-length integers. A node that was written before by the
+ * same writer, such as a javadoc comment that is also listed among a source's comments, is written as a reference to the earlier copy.
+ * 
+ * Subclasses of node classes from other packages are written as the node class they extend. Generated nodes, dangling nodes and messages
+ * are not supported.
+ */
+public final class NodeWriter {
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	static final String NODE_PACKAGE = "lombok.ast.";
+	static final int TAG_NULL = 0, TAG_REFERENCE = 1, TAG_NODE = 2;
+	
+	private final DataOutput out;
+	private final Map<String, Integer> strings = new HashMap<String, Integer>();
+	private final Map<Node, Integer> ids = new IdentityHashMap<Node, Integer>();
+	
+	public NodeWriter(DataOutput out) {
+		this.out = out;
+	}
+	
+	/**
+	 * @throws IOException If writing fails, or if {@code node} or one of its descendants can't be written.
+	 */
+	public void writeNode(Node node) throws IOException {
+		if (node == null) {
+			writeVarInt(TAG_NULL);
+			return;
+		}
+		
+		Integer id = ids.get(node);
+		if (id != null) {
+			writeVarInt(TAG_REFERENCE);
+			writeVarInt(id);
+			return;
+		}
+		ids.put(node, ids.size());
+		
+		Class<?> type = node.getClass();
+		while (type != null && !isNodeClass(type)) type = type.getSuperclass();
+		if (type == null) throw new IOException("Can't serialize node of type " + node.getClass().getName());
+		AbstractNode n = (AbstractNode) node;
+		if (!n.getDanglingNodes().isEmpty()) throw new IOException("Nodes with dangling nodes can't be serialized: " + node.getClass().getName());
+		if (!n.getMessages().isEmpty()) throw new IOException("Nodes with messages can't be serialized: " + node.getClass().getName());
+		
+		writeVarInt(TAG_NODE);
+		writeString(type.getName().substring(NODE_PACKAGE.length()));
+		if (node.isGenerated()) throw new IOException("Generated positions can't be serialized");
+		writeSignedVarInt(node.getStart());
+		writeSignedVarInt(node.getEnd() - node.getStart());
+		n.writeFields(this);
+	}
+	
+	void writeNodes(RawListAccessor<?, ?> list) throws IOException {
+		writeVarInt(list.size());
+		for (Node node : list) writeNode(node);
+	}
+	
+	public void writePosition(Position position) throws IOException {
+		if (position.getGeneratedBy() != null) throw new IOException("Generated positions can't be serialized");
+		writeSignedVarInt(position.getStart());
+		writeSignedVarInt(position.getEnd() - position.getStart());
+	}
+	
+	void writePositions(List<Position> positions) throws IOException {
+		writeVarInt(positions.size());
+		for (Position position : positions) writePosition(position);
+	}
+	
+	public void writeString(String value) throws IOException {
+		if (value == null) {
+			writeVarInt(0);
+			return;
+		}
+		
+		Integer id = strings.get(value);
+		if (id != null) {
+			writeVarInt(id);
+			return;
+		}
+		id = strings.size() + 1;
+		strings.put(value, id);
+		writeVarInt(id);
+		byte[] bytes = value.getBytes(UTF_8);
+		writeVarInt(bytes.length);
+		out.write(bytes);
+	}
+	
+	/**
+	 * Writes a non-negative int in as few bytes as possible: 7 bits per byte.
+	 */
+	public void writeVarInt(int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+	
+	/**
+	 * Like {@link #writeVarInt(int)}, but small negative numbers are written in few bytes as well.
+	 */
+	public void writeSignedVarInt(int value) throws IOException {
+		writeVarInt((value << 1) ^ (value >> 31));
+	}
+	
+	void writeBoolean(boolean value) throws IOException {
+		out.writeBoolean(value);
+	}
+	
+	void writeBoxedBoolean(Boolean value) throws IOException {
+		out.writeByte(value == null ? 0 : value ? 2 : 1);
+	}
+	
+	void writeBoxedCharacter(Character value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) out.writeChar(value);
+	}
+	
+	void writeBoxedLong(Long value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) out.writeLong(value);
+	}
+	
+	void writeBoxedDouble(Double value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) out.writeDouble(value);
+	}
+	
+	void writeEnum(Enum<?> value) throws IOException {
+		writeString(value == null ? null : value.name());
+	}
+	
+	static boolean isNodeClass(Class<?> type) {
+		String name = type.getName();
+		return AbstractNode.class.isAssignableFrom(type) && !Modifier.isAbstract(type.getModifiers()) &&
+				name.startsWith(NODE_PACKAGE) && name.indexOf('.', NODE_PACKAGE.length()) == -1 && name.indexOf('$') == -1;
+	}
+}
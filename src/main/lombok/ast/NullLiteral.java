@@ -21,6 +21,9 @@
  */
 package lombok.ast;
 
+import java.io.DataInput;
+import java.io.IOException;
+
 public class NullLiteral extends AbstractNode.WithParens implements Literal, Expression {
 	private String rawValue = "null";
 	private String errorReasonForValue;
@@ -73,4 +76,20 @@ public class NullLiteral extends AbstractNode.WithParens implements Literal, Exp
 		result.errorReasonForValue = errorReasonForValue;
 		return result;
 	}
+	
+	@Override void writeFields(NodeWriter out) throws IOException {
+		super.writeFields(out);
+		out.writeString(rawValue);
+		out.writeString(errorReasonForValue);
+	}
+	
+	@Override void readFields(NodeReader in) throws IOException {
+		super.readFields(in);
+		rawValue = in.readString();
+		errorReasonForValue = in.readString();
+	}
+	
+	public static NullLiteral readFrom(DataInput in) throws IOException {
+		return NodeReader.read(in, NullLiteral.class);
+	}
 }
@@ -35,6 +35,7 @@ public interface RawListAccessor<T extends Node, P extends Node> extends Iterabl
 	P addToEnd(Node... node);
 	P addBefore(Node ref, Node... node);
 	P addAfter(Node ref, Node... node);
+	P addAll(int index, Node... node);
 	boolean replace(Node source, Node replacement);
 	boolean remove(Node source);
 	StrictListAccessor<T, P> asStrictAccessor();
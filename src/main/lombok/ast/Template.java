@@ -128,13 +128,19 @@ public class Template<T extends Node> {
 	}
 	
 	private final AstVisitor visitor = new ForwardingAstVisitor() {
+		/* Consecutive nodes usually start at the same location, so one Position object can place them all. */
+		private Position here;
+		
 		@Override public boolean visitNode(Node node) {
-			node.setPosition(new Position(location, location, responsible));
+			if (here == null || here.getStart() != location || here.getGeneratedBy() != responsible) {
+				here = new Position(location, location, responsible);
+			}
+			node.setPosition(here);
 			return false;
 		}
 		
 		@Override public void endVisit(Node node) {
-			node.setPosition(new Position(node.getPosition().getStart(), location, responsible));
+			node.setRange(node.getStart(), location);
 		}
 		
 		private ReplacementOrder currentOrder() {
@@ -168,10 +174,10 @@ public class Template<T extends Node> {
 				
 				int startLoc, endLoc;
 				if (order.position == null) {
-					if (order.replacement.isEmpty() || order.replacement.get(0).getPosition().getStart() < 0) startLoc = location;
-					else startLoc = order.replacement.get(0).getPosition().getStart();
-					if (order.replacement.isEmpty() || order.replacement.get(order.replacement.size() - 1).getPosition().getEnd() < 0) endLoc = location;
-					else endLoc = order.replacement.get(order.replacement.size() - 1).getPosition().getEnd();
+					if (order.replacement.isEmpty() || order.replacement.get(0).getStart() < 0) startLoc = location;
+					else startLoc = order.replacement.get(0).getStart();
+					if (order.replacement.isEmpty() || order.replacement.get(order.replacement.size() - 1).getEnd() < 0) endLoc = location;
+					else endLoc = order.replacement.get(order.replacement.size() - 1).getEnd();
 				} else {
 					startLoc = order.position.getStart();
 					endLoc = order.position.getEnd();
@@ -209,10 +215,10 @@ public class Template<T extends Node> {
 				Node replacement = order.replacement.get(0);
 				int startLoc, endLoc;
 				if (order.position == null) {
-					if (order.replacement.isEmpty() || replacement.getPosition().getStart() < 0) startLoc = location;
-					else startLoc = replacement.getPosition().getStart();
-					if (order.replacement.isEmpty() || replacement.getPosition().getEnd() < 0) endLoc = location;
-					else endLoc = replacement.getPosition().getEnd();
+					if (order.replacement.isEmpty() || replacement.getStart() < 0) startLoc = location;
+					else startLoc = replacement.getStart();
+					if (order.replacement.isEmpty() || replacement.getEnd() < 0) endLoc = location;
+					else endLoc = replacement.getEnd();
 				} else {
 					startLoc = order.position.getStart();
 					endLoc = order.position.getEnd();
@@ -235,10 +241,10 @@ public class Template<T extends Node> {
 				Node replacement = order.replacement.get(0);
 				int startLoc, endLoc;
 				if (order.position == null) {
-					if (order.replacement.isEmpty() || replacement.getPosition().getStart() < 0) startLoc = location;
-					else startLoc = replacement.getPosition().getStart();
-					if (order.replacement.isEmpty() || replacement.getPosition().getEnd() < 0) endLoc = location;
-					else endLoc = replacement.getPosition().getEnd();
+					if (order.replacement.isEmpty() || replacement.getStart() < 0) startLoc = location;
+					else startLoc = replacement.getStart();
+					if (order.replacement.isEmpty() || replacement.getEnd() < 0) endLoc = location;
+					else endLoc = replacement.getEnd();
 				} else {
 					startLoc = order.position.getStart();
 					endLoc = order.position.getEnd();
@@ -40,8 +40,10 @@ import lombok.ast.ecj.EcjTreeBuilder;
 import lombok.ast.ecj.EcjTreeConverter;
 import lombok.ast.ecj.EcjTreeOperations;
 import lombok.ast.ecj.EcjTreePrinter;
+import lombok.ast.grammar.ParseCache;
 import lombok.ast.grammar.ParseProblem;
 import lombok.ast.grammar.Source;
+import lombok.ast.grammar.SourceBatch;
 import lombok.ast.javac.JcTreeBuilder;
 import lombok.ast.javac.JcTreeConverter;
 import lombok.ast.javac.JcTreePrinter;
@@ -83,6 +85,8 @@ import com.zwitserloot.cmdreader.Shorthand;
 
 @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
 public class Main {
+	private static final int PARSE_CACHE_MEMORY_ENTRIES = 64;
+	
 	private static class CmdArgs {
 		@Shorthand("v")
 		@Description("Print the name of each file as it is being converted.")
@@ -122,6 +126,14 @@ public class Main {
 		@FullName("no-positions")
 		private boolean noPositions;
 		
+		@Shorthand("t")
+		@Description("Amount of threads to use for parsing when the program starts with 'lombok'. Defaults to 1.")
+		private int threads = 1;
+		
+		@Description("Directory in which ASTs parsed with 'lombok' are cached, keyed on the file contents. Files that haven't changed since an earlier run aren't parsed again.")
+		@FullName("cache")
+		private String cache;
+		
 		@Mandatory(onlyIfNot={"help", "version"})
 		@Sequential
 		@Description("Operations to apply to each source file. Comma-separated (no spaces). Valid options: ecj/javac/lombok first to decide how the file is parsed initially, " +
@@ -162,7 +174,7 @@ public class Main {
 		
 		try {
 			Charset charset = args.encoding == null ? Charset.defaultCharset() : Charset.forName(args.encoding);
-			Main main = new Main(charset, args.verbose, args.normalize, !args.noPositions, args.saveIntermediate);
+			Main main = new Main(charset, args.verbose, args.normalize, !args.noPositions, args.saveIntermediate, Math.max(1, args.threads));
 			main.compile(args.program);
 			if (!args.print) {
 				File targetDir = new File(args.target);
@@ -174,6 +186,7 @@ public class Main {
 				}
 				main.setOutputDir(targetDir);
 			}
+			if (args.cache != null) main.setParseCache(new ParseCache(PARSE_CACHE_MEMORY_ENTRIES, new File(args.cache)));
 			
 			for (String input : args.input) {
 				main.addToQueue(input);
@@ -187,9 +200,17 @@ public class Main {
 		}
 	}
 	
-	private void go() throws IOException {
-		for (Plan p : files) {
-			process(p.getFile(), outDir, p.getRelativeName());
+	private void go() throws IOException, InterruptedException {
+		List<Source> parsed = null;
+		if (threads > 1 && program.get(0).equals(parseWithLombok)) {
+			SourceBatch batch = new SourceBatch().cache(parseCache);
+			for (Plan p : files) batch.add(p.getFile(), charset);
+			parsed = batch.parse(threads);
+		}
+		
+		for (int i = 0; i < files.size(); i++) {
+			Plan p = files.get(i);
+			process(p.getFile(), parsed == null ? null : parsed.get(i), outDir, p.getRelativeName());
 		}
 		if (errors > 0) {
 			System.err.printf("%d errors\n", errors);
@@ -201,6 +222,10 @@ public class Main {
 		this.outDir = f;
 	}
 	
+	private void setParseCache(ParseCache parseCache) {
+		this.parseCache = parseCache;
+	}
+	
 	private void addToQueue(String item) throws IOException {
 		addToQueue0(new File(item), "");
 	}
@@ -226,14 +251,14 @@ public class Main {
 		final String relativeName;
 	}
 	
-	private void process(File in, File outDir, String relativeName) throws IOException {
+	private void process(File in, Source parsed, File outDir, String relativeName) throws IOException {
 		File out = outDir == null ? null : new File(outDir, relativeName);
 		
 		if (verbose && !saveIntermediate) {
 			System.out.printf("Processing: %s to %s\n", in.getCanonicalPath(), out == null ? "sysout" : out.getCanonicalPath());
 		}
 		
-		Source source = new Source(Files.toString(in, charset), in.getCanonicalPath());
+		Source source = parsed != null ? parsed : new Source(Files.toString(in, charset), in.getCanonicalPath());
 		Object transfer = null;
 		String chain = "/";
 		
@@ -385,8 +410,10 @@ public class Main {
 	private final boolean normalize;
 	private final boolean positions;
 	private final boolean saveIntermediate;
+	private final int threads;
 	private int errors;
 	private File outDir = null;
+	private ParseCache parseCache = null;
 	private final List<Plan> files = Lists.newArrayList();
 	
 	interface Operation<A, B> {
@@ -410,6 +437,7 @@ public class Main {
 	
 	private final Operation<Void, Node> parseWithLombok = new Operation<Void, Node>() {
 		@Override public Node process(Source in, Void irrelevant) throws ConversionProblem {
+			if (parseCache != null) parseCache.parseCompilationUnit(in);
 			List<Node> nodes = in.getNodes();
 			List<ParseProblem> problems = in.getProblems();
 			if (problems.size() > 0) throw new ConversionProblem(String.format("Can't read file %s due to parse error: %s", in.getName(), problems.get(0)));
@@ -494,7 +522,7 @@ public class Main {
 	
 	private final Operation<Node, String> lombokToHtml = new Operation<Node, String>() {
 		@Override public String process(Source source, Node in) throws ConversionProblem {
-			SourceFormatter formatter = new HtmlFormatter(source.getRawInput());
+			SourceFormatter formatter = new HtmlFormatter(source.getRawInput(), source.getLineMap());
 			in.accept(new SourcePrinter(formatter));
 			
 			for (ParseProblem x : source.getProblems()) {
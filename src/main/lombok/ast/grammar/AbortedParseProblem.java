@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.ast.Position;
+
+/**
+ * Reported when a parse was stopped before it finished, because it was cancelled or ran out of the budget set in its {@link ParseOptions}.
+ * A source with this problem has no nodes; the input may or may not be valid java.
+ */
+@Getter
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+public class AbortedParseProblem extends ParseProblem {
+	public enum Reason {
+		/**
+		 * The {@link CancellationToken} was cancelled.
+		 */
+		CANCELLED("Parse cancelled"),
+		
+		/**
+		 * More matchers ran than {@link ParseOptions#maxMatcherInvocations(long)} allows.
+		 */
+		MATCHER_INVOCATIONS("Parse exceeded its maximum number of matcher invocations"),
+		
+		/**
+		 * The {@link ParseOptions#deadline(long) deadline} passed.
+		 */
+		DEADLINE("Parse did not finish before its deadline");
+		
+		private final String message;
+		
+		private Reason(String message) {
+			this.message = message;
+		}
+	}
+	
+	private final Reason reason;
+	
+	/**
+	 * @param position Roughly where the parser was when it was stopped.
+	 */
+	public AbortedParseProblem(Position position, Reason reason) {
+		super(position, reason.message);
+		this.reason = reason;
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.ast.Node;
+
+import org.parboiled.BaseParser;
+import org.parboiled.support.ParseTreeUtils;
+
+/**
+ * Base class of the grammar parsers. Resolves the label paths used in actions, such as {@code value("Optional/Sequence/head")},
+ * through {@link LabelPath} so a path is split into its labels once instead of on every action invocation.
+ */
+abstract class AbstractParser extends BaseParser<Node> {
+	@Override public org.parboiled.Node<Node> node(String path) {
+		return LabelPath.of(path).node(getContext().getSubNodes());
+	}
+	
+	@Override public List<org.parboiled.Node<Node>> nodes(String path) {
+		return LabelPath.of(path).nodes(getContext().getSubNodes());
+	}
+	
+	@Override public Node value(String path) {
+		org.parboiled.Node<Node> node = node(path);
+		return node == null ? null : node.getValue();
+	}
+	
+	@Override public List<Node> values(String path) {
+		List<org.parboiled.Node<Node>> nodes = nodes(path);
+		List<Node> values = new ArrayList<Node>(nodes.size());
+		for (org.parboiled.Node<Node> node : nodes) values.add(node.getValue());
+		return values;
+	}
+	
+	@Override public String text(String path) {
+		org.parboiled.Node<Node> node = node(path);
+		return node == null ? null : ParseTreeUtils.getNodeText(node, getContext().getInputBuffer());
+	}
+	
+	@Override public List<String> texts(String path) {
+		List<org.parboiled.Node<Node>> nodes = nodes(path);
+		List<String> texts = new ArrayList<String>(nodes.size());
+		for (org.parboiled.Node<Node> node : nodes) texts.add(ParseTreeUtils.getNodeText(node, getContext().getInputBuffer()));
+		return texts;
+	}
+}
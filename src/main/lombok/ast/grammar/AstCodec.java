@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import lombok.ast.Comment;
+import lombok.ast.Node;
+import lombok.ast.NodeReader;
+import lombok.ast.NodeWriter;
+import lombok.ast.Position;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Turns the result of parsing a {@link Source} (its nodes, comments and problems) into a byte array and back, for {@link ParseCache}.
+ */
+final class AstCodec {
+	private static final int MAGIC = 0x4C415354;
+	private static final int FORMAT_VERSION = 1;
+	
+	private AstCodec() {}
+	
+	/**
+	 * @throws IOException If the nodes contain something that can't be serialized, such as dangling nodes left behind by a parse error.
+	 */
+	static byte[] write(List<Node> nodes, List<Comment> comments, List<ParseProblem> problems) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeByte(FORMAT_VERSION);
+		
+		NodeWriter writer = new NodeWriter(out);
+		writer.writeVarInt(nodes.size());
+		for (Node node : nodes) writer.writeNode(node);
+		writer.writeVarInt(comments.size());
+		for (Comment comment : comments) writer.writeNode(comment);
+		writer.writeVarInt(problems.size());
+		for (ParseProblem problem : problems) {
+			writer.writePosition(problem.getPosition());
+			writer.writeString(problem.getMessage());
+		}
+		out.flush();
+		return bytes.toByteArray();
+	}
+	
+	/**
+	 * Reads back what {@link #write(List, List, List)} produced and installs it in {@code target} as if it had just been parsed.
+	 * 
+	 * @throws IOException If {@code data} is truncated, corrupt or was written by an incompatible version.
+	 */
+	static void read(byte[] data, Source target) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+		if (in.readInt() != MAGIC || in.readByte() != FORMAT_VERSION) throw new IOException("Not a serialized AST");
+		
+		NodeReader reader = new NodeReader(in);
+		int nodeCount = reader.readVarInt();
+		List<Node> nodes = Lists.newArrayListWithCapacity(nodeCount);
+		for (int i = 0; i < nodeCount; i++) nodes.add(reader.readNode());
+		
+		int commentCount = reader.readVarInt();
+		List<Comment> comments = Lists.newArrayListWithCapacity(commentCount);
+		for (int i = 0; i < commentCount; i++) {
+			Node comment = reader.readNode();
+			if (!(comment instanceof Comment)) throw new IOException("Expected a comment: " + comment);
+			comments.add((Comment) comment);
+		}
+		
+		int problemCount = reader.readVarInt();
+		List<ParseProblem> problems = Lists.newArrayListWithCapacity(problemCount);
+		for (int i = 0; i < problemCount; i++) {
+			Position position = reader.readPosition();
+			problems.add(new ParseProblem(position, reader.readString()));
+		}
+		if (in.read() != -1) throw new IOException("Trailing data after serialized AST");
+		
+		target.restore(nodes, comments, problems);
+	}
+}
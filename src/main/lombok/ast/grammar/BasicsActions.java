@@ -24,7 +24,8 @@ package lombok.ast.grammar;
 import lombok.ast.Comment;
 import lombok.ast.Identifier;
 import lombok.ast.Node;
-import lombok.ast.Position;
+
+import org.parboiled.support.InputBuffer;
 
 public class BasicsActions extends SourceActions {
 	public BasicsActions(Source source) {
@@ -33,16 +34,16 @@ public class BasicsActions extends SourceActions {
 	
 	public Node createIdentifier(String text, org.parboiled.Node<Node> rawIdentifier) {
 		Identifier id = new Identifier();
-		if (text != null) id.astValue(text);
+		if (text != null) id.astValue(source.internSymbol(text));
 		
 		int start = rawIdentifier.getStartIndex();
 		int end = Math.max(start, rawIdentifier.getEndIndex());
-		id.setPosition(new Position(start, end));
+		id.setRange(start, end);
 		return id;
 	}
 	
 	public boolean checkIfKeyword(String text) {
-		return text == null || !BasicsParser.KEYWORDS.contains(text);
+		return text == null || !BasicsParser.isKeyword(text);
 	}
 	
 	public boolean logComment(String text) {
@@ -53,17 +54,31 @@ public class BasicsActions extends SourceActions {
 	public boolean logBlockComment(String text) {
 		if (text.startsWith("/*")) text = text.substring(2);
 		if (text.endsWith("*/")) text = text.substring(0, text.length() - 2);
-		Comment c = new Comment().astBlockComment(true).astContent(text);
-		c.setPosition(new Position(startPos(), currentPos()));
-		source.registerComment(getContext(), c);
+		source.registerComment(getContext(), createComment(true, text, startPos(), currentPos()));
 		return true;
 	}
 	
 	public boolean logLineComment(String text) {
 		if (text.startsWith("//")) text = text.substring(2);
-		Comment c = new Comment().astBlockComment(false).astContent(text);
-		c.setPosition(new Position(startPos(), currentPos()));
-		source.registerComment(getContext(), c);
+		source.registerComment(getContext(), createComment(false, text, startPos(), currentPos()));
 		return true;
 	}
+	
+	static Comment createComment(boolean blockComment, String content, int start, int end) {
+		Comment c = new Comment().astBlockComment(blockComment).astContent(content);
+		c.setRange(start, end);
+		return c;
+	}
+	
+	int tokenTriviaEnd(InputBuffer input, int index) {
+		return source.tokenTriviaEnd(input, index);
+	}
+	
+	int tokenIdentifierEnd(InputBuffer input, int index) {
+		return source.tokenIdentifierEnd(input, index);
+	}
+	
+	void budgetStep(int index) {
+		source.budgetStep(index);
+	}
 }
@@ -27,7 +27,6 @@ import java.util.List;
 
 import lombok.ast.Node;
 
-import org.parboiled.BaseParser;
 import org.parboiled.MatcherContext;
 import org.parboiled.Rule;
 import org.parboiled.annotations.SuppressSubnodes;
@@ -37,7 +36,13 @@ import org.parboiled.support.Characters;
 /**
  * Contains the basics of java parsing: Whitespace and comment handling, as well as applying backslash-u escapes.
  */
-public class BasicsParser extends BaseParser<Node> {
+public class BasicsParser extends AbstractParser {
+	/**
+	 * Labels the parse tree nodes of whitespace and comments that were skipped using the {@link TokenStream}. Their comments are not logged while parsing;
+	 * {@link Source} picks them up from the token stream.
+	 */
+	static final String TOKEN_WS_LABEL = "tokenWS";
+	
 	final ParserGroup group;
 	final BasicsActions actions;
 	
@@ -48,9 +53,13 @@ public class BasicsParser extends BaseParser<Node> {
 	
 	/**
 	 * Eats up any whitespace and comments at the current position.
+	 * 
+	 * Between two tokens this jumps straight to the next one; elsewhere, or if the input doesn't match the lexed source there, it's done character by character.
 	 */
 	public Rule optWS() {
-		return ZeroOrMore(FirstOf(comment(), whitespaceChar())).label("ws");
+		return FirstOf(
+				new TokenWhitespaceMatcher(actions).label(TOKEN_WS_LABEL),
+				ZeroOrMore(FirstOf(comment(), whitespaceChar()))).label("ws");
 	}
 	
 	/**
@@ -97,47 +106,178 @@ public class BasicsParser extends BaseParser<Node> {
 			"public", "private", "protected"
 	));
 	
+	/**
+	 * Returns whether {@code text} is one of the {@link #KEYWORDS}, by switching on its length and first character so that at most three
+	 * strings are compared.
+	 */
+	static boolean isKeyword(String text) {
+		switch (text.length()) {
+		case 2:
+			switch (text.charAt(0)) {
+			case 'd': return text.equals("do");
+			case 'i': return text.equals("if");
+			default: return false;
+			}
+		case 3:
+			switch (text.charAt(0)) {
+			case 'f': return text.equals("for");
+			case 'i': return text.equals("int");
+			case 'n': return text.equals("new");
+			case 't': return text.equals("try");
+			default: return false;
+			}
+		case 4:
+			switch (text.charAt(0)) {
+			case 'b': return text.equals("byte");
+			case 'c': return text.equals("char") || text.equals("case");
+			case 'e': return text.equals("enum") || text.equals("else");
+			case 'g': return text.equals("goto");
+			case 'l': return text.equals("long");
+			case 'n': return text.equals("null");
+			case 't': return text.equals("this") || text.equals("true");
+			case 'v': return text.equals("void");
+			default: return false;
+			}
+		case 5:
+			switch (text.charAt(0)) {
+			case 'b': return text.equals("break");
+			case 'c': return text.equals("class") || text.equals("catch") || text.equals("const");
+			case 'f': return text.equals("final") || text.equals("float") || text.equals("false");
+			case 's': return text.equals("short") || text.equals("super");
+			case 't': return text.equals("throw");
+			case 'w': return text.equals("while");
+			default: return false;
+			}
+		case 6:
+			switch (text.charAt(0)) {
+			case 'a': return text.equals("assert");
+			case 'd': return text.equals("double");
+			case 'i': return text.equals("import");
+			case 'n': return text.equals("native");
+			case 'p': return text.equals("public");
+			case 'r': return text.equals("return");
+			case 's': return text.equals("static") || text.equals("switch");
+			case 't': return text.equals("throws");
+			default: return false;
+			}
+		case 7:
+			switch (text.charAt(0)) {
+			case 'b': return text.equals("boolean");
+			case 'd': return text.equals("default");
+			case 'e': return text.equals("extends");
+			case 'f': return text.equals("finally");
+			case 'p': return text.equals("package") || text.equals("private");
+			default: return false;
+			}
+		case 8:
+			switch (text.charAt(0)) {
+			case 'a': return text.equals("abstract");
+			case 'c': return text.equals("continue");
+			case 's': return text.equals("strictfp");
+			case 'v': return text.equals("volatile");
+			default: return false;
+			}
+		case 9:
+			switch (text.charAt(0)) {
+			case 'i': return text.equals("interface");
+			case 'p': return text.equals("protected");
+			case 't': return text.equals("transient");
+			default: return false;
+			}
+		case 10:
+			return text.equals("instanceof") || text.equals("implements");
+		case 12:
+			return text.equals("synchronized");
+		default:
+			return false;
+		}
+	}
+	
 	@SuppressSubnodes
 	public Rule identifierRaw() {
-		return Sequence(new JavaIdentifierStartMatcher(), ZeroOrMore(new JavaIdentifierPartMatcher()));
+		return FirstOf(
+				new TokenIdentifierMatcher(actions),
+				new JavaIdentifierMatcher());
 	}
 	
 	public Rule identifierPart() {
-		return new JavaIdentifierPartMatcher();
+		return new CharClasses.CharClassMatcher(CharClasses.IDENTIFIER_PART);
 	}
 	
-	private static class JavaIdentifierPartMatcher extends CharSetMatcher<Node> {
-		public JavaIdentifierPartMatcher() {
-			super(Characters.of("abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789_$"));
+	/**
+	 * Skips the whitespace and comments the token stream found at the current position. Never matches empty, so that the starter characters
+	 * it advertises hold; {@code optWS()} falls back to its other alternative when there is nothing to skip.
+	 */
+	private static class TokenWhitespaceMatcher extends CharSetMatcher<Node> {
+		private final BasicsActions actions;
+		
+		public TokenWhitespaceMatcher(BasicsActions actions) {
+			super(Characters.of(" \t\f\r\n/"));
+			this.actions = actions;
 		}
 		
 		@Override public boolean match(MatcherContext<Node> context) {
-			char current = context.getCurrentChar();
-			if (Character.isJavaIdentifierPart(current)) {
-				context.advanceIndex();
-				context.createNode();
-				return true;
-			}
-			return false;
+			actions.budgetStep(context.getCurrentIndex());
+			int end = actions.tokenTriviaEnd(context.getInputBuffer(), context.getCurrentIndex());
+			if (end <= context.getCurrentIndex()) return false;
+			while (context.getCurrentIndex() < end) context.advanceIndex();
+			context.createNode();
+			return true;
 		}
 	}
 	
-	private static class JavaIdentifierStartMatcher extends CharSetMatcher<Node> {
-		public JavaIdentifierStartMatcher() {
+	private static class TokenIdentifierMatcher extends CharSetMatcher<Node> {
+		private final BasicsActions actions;
+		
+		public TokenIdentifierMatcher(BasicsActions actions) {
 			super(Characters.of("abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ_$"));
+			this.actions = actions;
 		}
 		
 		@Override public boolean match(MatcherContext<Node> context) {
-			char current = context.getCurrentChar();
-			if (Character.isJavaIdentifierStart(current)) {
+			int end = actions.tokenIdentifierEnd(context.getInputBuffer(), context.getCurrentIndex());
+			if (end <= context.getCurrentIndex()) return false;
+			while (context.getCurrentIndex() < end) context.advanceIndex();
+			context.createNode();
+			return true;
+		}
+	}
+	
+	/**
+	 * Matches a whole identifier in one go, rather than running a matcher for each of its characters.
+	 */
+	private static class JavaIdentifierMatcher extends CharSetMatcher<Node> {
+		public JavaIdentifierMatcher() {
+			super(CharClasses.asciiMembers(CharClasses.IDENTIFIER_START));
+		}
+		
+		@Override public boolean match(MatcherContext<Node> context) {
+			if (!CharClasses.isIdentifierStart(context.getCurrentChar())) return false;
+			do {
 				context.advanceIndex();
-				context.createNode();
-				return true;
-			}
-			return false;
+			} while (CharClasses.isIdentifierPart(context.getCurrentChar()));
+			context.createNode();
+			return true;
 		}
 	}
 	
+	/**
+	 * Matches a single whitespace character, or a CR LF pair.
+	 */
+	private static class WhitespaceCharMatcher extends CharSetMatcher<Node> {
+		public WhitespaceCharMatcher() {
+			super(CharClasses.asciiMembers(CharClasses.WHITESPACE));
+		}
+		
+		@Override public boolean match(MatcherContext<Node> context) {
+			char current = context.getCurrentChar();
+			if (!CharClasses.is(current, CharClasses.WHITESPACE)) return false;
+			context.advanceIndex();
+			if (current == '\r' && context.getCurrentChar() == '\n') context.advanceIndex();
+			context.createNode();
+			return true;
+		}
+	}
 	
 	/**
 	 * Any comment (block, line, or javadoc)
@@ -163,9 +303,8 @@ public class BasicsParser extends BaseParser<Node> {
 	/**
 	 * @see <a href="http://java.sun.com/docs/books/jls/third_edition/html/lexical.html#3.4">JLS section 3.4</a>
 	 */
-	@SuppressSubnodes
 	Rule whitespaceChar() {
-		return FirstOf(Ch(' '), Ch('\t'), Ch('\f'), lineTerminator());
+		return new WhitespaceCharMatcher();
 	}
 	
 	/**
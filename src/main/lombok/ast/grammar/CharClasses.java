@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import lombok.ast.Node;
+
+import org.parboiled.MatcherContext;
+import org.parboiled.matchers.CharSetMatcher;
+import org.parboiled.support.Characters;
+
+/**
+ * Lookup tables for the character classes of the java lexer. ASCII characters are looked up in a 128-entry table; anything else
+ * falls back to the {@code Character} methods.
+ */
+final class CharClasses {
+	static final int IDENTIFIER_START = 1;
+	static final int IDENTIFIER_PART = 2;
+	static final int DIGIT = 4;
+	static final int HEX_DIGIT = 8;
+	static final int OCTAL_DIGIT = 16;
+	
+	/**
+	 * Space, tab, form feed, CR and LF.
+	 * 
+	 * @see <a href="http://java.sun.com/docs/books/jls/third_edition/html/lexical.html#3.6">JLS section 3.6</a>
+	 */
+	static final int WHITESPACE = 32;
+	
+	private static final byte[] ASCII = new byte[128];
+	
+	static {
+		for (char c = 0; c < 128; c++) {
+			int flags = 0;
+			// The Character methods count some control characters as identifier parts; the tables copy them so nothing changes for those.
+			if (Character.isJavaIdentifierStart(c)) flags |= IDENTIFIER_START;
+			if (Character.isJavaIdentifierPart(c)) flags |= IDENTIFIER_PART;
+			if (c >= '0' && c <= '9') flags |= DIGIT | HEX_DIGIT;
+			if ((c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F')) flags |= HEX_DIGIT;
+			if (c >= '0' && c <= '7') flags |= OCTAL_DIGIT;
+			if (c == ' ' || c == '\t' || c == '\f' || c == '\r' || c == '\n') flags |= WHITESPACE;
+			ASCII[c] = (byte) flags;
+		}
+	}
+	
+	private CharClasses() {}
+	
+	static boolean is(char c, int charClass) {
+		if (c < 128) return (ASCII[c] & charClass) != 0;
+		switch (charClass) {
+		case IDENTIFIER_START:
+			return Character.isJavaIdentifierStart(c);
+		case IDENTIFIER_PART:
+			return Character.isJavaIdentifierPart(c);
+		default:
+			return false;
+		}
+	}
+	
+	static boolean isIdentifierStart(char c) {
+		return c < 128 ? (ASCII[c] & IDENTIFIER_START) != 0 : Character.isJavaIdentifierStart(c);
+	}
+	
+	static boolean isIdentifierPart(char c) {
+		return c < 128 ? (ASCII[c] & IDENTIFIER_PART) != 0 : Character.isJavaIdentifierPart(c);
+	}
+	
+	/**
+	 * Returns the ASCII characters in {@code charClass}, for use as the starter characters of a matcher.
+	 */
+	static Characters asciiMembers(int charClass) {
+		StringBuilder members = new StringBuilder();
+		for (char c = 0; c < 128; c++) {
+			if ((ASCII[c] & charClass) != 0) members.append(c);
+		}
+		return Characters.of(members.toString());
+	}
+	
+	/**
+	 * Matches a single character of the given class.
+	 */
+	static class CharClassMatcher extends CharSetMatcher<Node> {
+		private final int charClass;
+		
+		CharClassMatcher(int charClass) {
+			super(asciiMembers(charClass));
+			this.charClass = charClass;
+		}
+		
+		@Override public boolean match(MatcherContext<Node> context) {
+			if (!is(context.getCurrentChar(), charClass)) return false;
+			context.advanceIndex();
+			context.createNode();
+			return true;
+		}
+	}
+}
@@ -21,7 +21,9 @@
  */
 package lombok.ast.grammar;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import lombok.ast.ArrayAccess;
 import lombok.ast.ArrayCreation;
@@ -48,11 +50,115 @@ import lombok.ast.UnaryExpression;
 import lombok.ast.UnaryOperator;
 import lombok.ast.VariableReference;
 
+import org.parboiled.support.InputBuffer;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
 public class ExpressionsActions extends SourceActions {
+	static final String CHAIN_OPERAND = "chainOperand";
+	static final String CHAIN_OPERATOR = "chainOperator";
+	
+	/**
+	 * How tightly each binary operator binds; higher binds tighter. {@code instanceof} goes with the relational operators.
+	 */
+	private static final Map<String, Integer> BINARY_PRECEDENCE;
+	static {
+		Map<String, Integer> precedence = Maps.newHashMap();
+		String[][] levels = {
+				{"||"}, {"^^"}, {"&&"}, {"|"}, {"^"}, {"&"},
+				{"===", "!==", "==", "!="},
+				{"<=", ">=", "<", ">", "instanceof"},
+				{">>>", "<<<", "<<", ">>"},
+				{"+", "-"},
+				{"*", "/", "%"}};
+		for (int i = 0; i < levels.length; i++) for (String operator : levels[i]) precedence.put(operator, i);
+		BINARY_PRECEDENCE = Collections.unmodifiableMap(precedence);
+	}
+	
 	public ExpressionsActions(Source source) {
 		super(source);
 	}
 	
+	public boolean usePrecedenceClimbing() {
+		return source.getOptions().isPrecedenceClimbing();
+	}
+	
+	public boolean usePrecedenceLevels() {
+		return !source.getOptions().isPrecedenceClimbing();
+	}
+	
+	/**
+	 * Turns the operands and operators matched by {@link ExpressionsParser#precedenceClimbingChain()} into the same tree of
+	 * {@code BinaryExpression} and {@code InstanceOf} nodes the rules per precedence level build, with the same positions.
+	 */
+	public Node createBinaryExpressionsByPrecedence() {
+		List<org.parboiled.Node<Node>> parts = Lists.newArrayList();
+		for (org.parboiled.Node<Node> child : getContext().getSubNodes()) collectChainParts(child, parts);
+		if (parts.isEmpty()) return null;
+		
+		InputBuffer input = getContext().getInputBuffer();
+		List<Node> operands = Lists.newArrayList();
+		List<org.parboiled.Node<Node>> operandStarts = Lists.newArrayList();
+		List<org.parboiled.Node<Node>> operandEnds = Lists.newArrayList();
+		List<org.parboiled.Node<Node>> operators = Lists.newArrayList();
+		List<String> operatorTexts = Lists.newArrayList();
+		
+		operands.add(parts.get(0).getValue());
+		operandStarts.add(parts.get(0));
+		operandEnds.add(parts.get(0));
+		for (int i = 1; i + 1 < parts.size(); i += 2) {
+			org.parboiled.Node<Node> operator = parts.get(i);
+			String text = input.extract(operator.getStartIndex(), operator.getEndIndex());
+			int precedence = BINARY_PRECEDENCE.get(text);
+			while (!operators.isEmpty() && BINARY_PRECEDENCE.get(operatorTexts.get(operatorTexts.size() - 1)) >= precedence) {
+				reduceChain(operands, operandStarts, operandEnds, operators, operatorTexts);
+			}
+			operators.add(operator);
+			operatorTexts.add(text);
+			operands.add(parts.get(i + 1).getValue());
+			operandStarts.add(parts.get(i + 1));
+			operandEnds.add(parts.get(i + 1));
+		}
+		while (!operators.isEmpty()) reduceChain(operands, operandStarts, operandEnds, operators, operatorTexts);
+		
+		return operands.get(0);
+	}
+	
+	private void reduceChain(List<Node> operands, List<org.parboiled.Node<Node>> operandStarts, List<org.parboiled.Node<Node>> operandEnds,
+			List<org.parboiled.Node<Node>> operators, List<String> operatorTexts) {
+		
+		int last = operands.size() - 1;
+		org.parboiled.Node<Node> operator = operators.remove(last - 1);
+		String text = operatorTexts.remove(last - 1);
+		Node right = operands.remove(last);
+		operandStarts.remove(last);
+		org.parboiled.Node<Node> rightEnd = operandEnds.remove(last);
+		Node left = operands.get(last - 1);
+		org.parboiled.Node<Node> leftStart = operandStarts.get(last - 1);
+		
+		Node result;
+		if ("instanceof".equals(text)) {
+			if (right == null) return;
+			result = new InstanceOf().rawObjectReference(left).rawTypeReference(right);
+		} else {
+			result = new BinaryExpression().rawLeft(left).rawRight(right).rawOperator(text);
+			source.registerStructure(result, operator);
+		}
+		positionSpan(result, leftStart, rightEnd);
+		operands.set(last - 1, result);
+		operandEnds.set(last - 1, rightEnd);
+	}
+	
+	private static void collectChainParts(org.parboiled.Node<Node> node, List<org.parboiled.Node<Node>> parts) {
+		String label = node.getLabel();
+		if (CHAIN_OPERAND.equals(label) || CHAIN_OPERATOR.equals(label)) {
+			parts.add(node);
+			return;
+		}
+		for (org.parboiled.Node<Node> child : node.getChildren()) collectChainParts(child, parts);
+	}
+	
 	public Node createLeftAssociativeBinaryExpression(
 			org.parboiled.Node<Node> head,
 			List<org.parboiled.Node<Node>> operatorsNodes, 
@@ -134,7 +240,7 @@ public class ExpressionsActions extends SourceActions {
 				current = expr;
 			}
 			
-			if (prev != null && !prev.getPosition().isUnplaced() && prev != current && current != null) {
+			if (prev != null && Source.isPlaced(prev) && prev != current && current != null) {
 				positionSpan(current, operator, operand);
 			}
 		}
@@ -154,8 +260,8 @@ public class ExpressionsActions extends SourceActions {
 			if (op.equals("++")) current = new UnaryExpression().rawOperand(current).astOperator(UnaryOperator.POSTFIX_INCREMENT);
 			else if (op.equals("--")) current = new UnaryExpression().rawOperand(current).astOperator(UnaryOperator.POSTFIX_DECREMENT);
 			org.parboiled.Node<Node> p = nodes.get(i);
-			if (prev != null && !prev.getPosition().isUnplaced() && p != null) {
-				current.setPosition(new Position(prev.getPosition().getStart(), p.getEndIndex()));
+			if (prev != null && Source.isPlaced(prev) && p != null) {
+				current.setRange(prev.getStart(), p.getEndIndex());
 			}
 		}
 		return current;
@@ -180,7 +286,7 @@ public class ExpressionsActions extends SourceActions {
 		} else {
 			classTypeArgs0 = new TypeReferencePart();
 			if (identifierNode != null) {
-				classTypeArgs0.setPosition(identifierNode.getPosition());
+				classTypeArgs0.setRange(identifierNode.getStart(), identifierNode.getEnd());
 			}
 		}
 		
@@ -188,7 +294,7 @@ public class ExpressionsActions extends SourceActions {
 				classTypeArgs0.astIdentifier(createIdentifierIfNeeded(identifierNode, currentPos())));
 		if (!classTypeArgsCorrect) {
 			if (identifier != null && identifier.getValue() != null) {
-				typeReference.setPosition(identifier.getValue().getPosition());
+				typeReference.setRange(identifier.getValue().getStart(), identifier.getValue().getEnd());
 			}
 		} else {
 			positionSpan(typeReference, identifier, classTypeArgs);
@@ -326,7 +432,7 @@ public class ExpressionsActions extends SourceActions {
 	
 	public Node createDimension(Node dimExpr, org.parboiled.Node<Node> arrayOpen) {
 		ArrayDimension d = new ArrayDimension().rawDimension(dimExpr);
-		if (arrayOpen != null) d.setPosition(new Position(arrayOpen.getStartIndex(), currentPos()));
+		if (arrayOpen != null) d.setRange(arrayOpen.getStartIndex(), currentPos());
 		return d;
 	}
 	
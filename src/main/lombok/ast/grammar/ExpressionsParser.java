@@ -21,15 +21,17 @@
  */
 package lombok.ast.grammar;
 
+import java.util.Arrays;
+import java.util.List;
+
 import lombok.ast.Node;
 
 import org.parboiled.Action;
-import org.parboiled.BaseParser;
 import org.parboiled.Context;
 import org.parboiled.Rule;
 import org.parboiled.annotations.Cached;
 
-public class ExpressionsParser extends BaseParser<Node> {
+public class ExpressionsParser extends AbstractParser {
 	final ParserGroup group;
 	final ExpressionsActions actions;
 	
@@ -38,6 +40,18 @@ public class ExpressionsParser extends BaseParser<Node> {
 		this.group = group;
 	}
 	
+	/**
+	 * Returns the rules whose mismatches are remembered during a parse run; see {@link MismatchMemo}.
+	 * 
+	 * These are tried again at the same position when an enclosing rule backtracks.
+	 * {@link #statementExpression()} for example runs {@code level1ExpressionChaining()} from the same position up to 4 times, and each time
+	 * {@link #primaryExpression()} tries (and usually fails) to parse a type for a class literal and a {@code new} expression for array
+	 * creation before it gets to plain identifiers.
+	 */
+	List<Rule> mismatchMemoizingRules() {
+		return Arrays.asList(arrayCreationExpression(), qualifiedClassOrThisOrSuperLiteral());
+	}
+	
 	/**
 	 * P0
 	 */
@@ -378,6 +392,72 @@ public class ExpressionsParser extends BaseParser<Node> {
 		return forLeftAssociativeBinaryExpression("exprLogicalOr", String("||"), conditionalXorExpressionChaining());
 	}
 	
+	/**
+	 * P3 to P12, parsed either through one rule per precedence level, or (if the source's {@link ParseOptions#precedenceClimbing(boolean) options}
+	 * ask for it) as a flat chain of operands and operators.
+	 */
+	Rule binaryExpressionChaining() {
+		return FirstOf(
+				Sequence(actions.usePrecedenceClimbing(), precedenceClimbingChain(), set()),
+				Sequence(actions.usePrecedenceLevels(), conditionalOrExpressionChaining(), set()));
+	}
+	
+	/**
+	 * P3 to P12 in a single rule: operands (P2 expressions) separated by any of the binary operators, which
+	 * {@link ExpressionsActions#createBinaryExpressionsByPrecedence()} then arranges into a tree by precedence climbing.
+	 * 
+	 * The chain ends where the rules per level would end it: {@code instanceof} (see {@link #relationalExpressionChaining()}) can only be
+	 * followed by an operator that binds less tightly than the relational operators.
+	 */
+	Rule precedenceClimbingChain() {
+		return Sequence(
+				precedenceClimbingRun(),
+				ZeroOrMore(Sequence(
+						instanceOfOperation(),
+						looseBinaryOperator().label(ExpressionsActions.CHAIN_OPERATOR),
+						group.basics.optWS(),
+						precedenceClimbingRun())),
+				Optional(instanceOfOperation()),
+				set(actions.createBinaryExpressionsByPrecedence()));
+	}
+	
+	Rule precedenceClimbingRun() {
+		return Sequence(
+				level2ExpressionChaining().label(ExpressionsActions.CHAIN_OPERAND),
+				group.basics.optWS(),
+				ZeroOrMore(Sequence(
+						FirstOf(
+								FirstOf(Ch('*'), solitarySymbol('/'), Ch('%')),
+								FirstOf(solitarySymbol('+'), solitarySymbol('-')),
+								FirstOf(String(">>>"), String("<<<"), String("<<"), String(">>")),
+								FirstOf(String("<="), String(">="), solitarySymbol('<'), solitarySymbol('>')),
+								looseBinaryOperator()).label(ExpressionsActions.CHAIN_OPERATOR),
+						group.basics.optWS(),
+						level2ExpressionChaining().label(ExpressionsActions.CHAIN_OPERAND),
+						group.basics.optWS())));
+	}
+	
+	Rule instanceOfOperation() {
+		return Sequence(
+				String("instanceof").label(ExpressionsActions.CHAIN_OPERATOR), group.basics.testLexBreak(), group.basics.optWS(),
+				group.types.type().label(ExpressionsActions.CHAIN_OPERAND),
+				group.basics.optWS());
+	}
+	
+	/**
+	 * The binary operators of P7 to P12, which bind less tightly than the relational operators.
+	 */
+	Rule looseBinaryOperator() {
+		return FirstOf(
+				FirstOf(String("==="), String("!=="), String("=="), String("!=")),
+				solitarySymbol('&'),
+				solitarySymbol('^'),
+				solitarySymbol('|'),
+				String("&&"),
+				String("^^"),
+				String("||"));
+	}
+	
 	/**
 	 * P13
 	 * 
@@ -385,7 +465,7 @@ public class ExpressionsParser extends BaseParser<Node> {
 	 */
 	Rule inlineIfExpressionChaining() {
 		return Sequence(
-				conditionalOrExpressionChaining().label("head"),
+				binaryExpressionChaining().label("head"),
 				set(),
 				Optional(
 						Sequence(
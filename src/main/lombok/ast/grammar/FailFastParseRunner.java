@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import org.parboiled.BasicParseRunner;
+import org.parboiled.MatchHandler;
+import org.parboiled.MatcherContext;
+import org.parboiled.Rule;
+import org.parboiled.support.ParsingResult;
+
+/**
+ * Like the {@code BasicParseRunner}, which gives up as soon as the input turns out not to match, but also remembers the furthest
+ * position any rule got to before failing. If the parse fails that is where the (first) syntax error is, which is the same
+ * position parboiled's error reporting starts from; retrieve it with {@link #getErrorIndex()}.
+ * 
+ * If given a {@link ParseBudget}, every matcher invocation is a step of it. If given a {@link MismatchMemo}, memoizing rules that already
+ * failed at a position fail there again at once.
+ */
+public class FailFastParseRunner<V> extends BasicParseRunner<V> {
+	private final ParseBudget budget;
+	private final MismatchMemo memo;
+	private int errorIndex = -1;
+	
+	public FailFastParseRunner(Rule rule, String input) {
+		this(rule, input, null, null);
+	}
+	
+	FailFastParseRunner(Rule rule, String input, ParseBudget budget, MismatchMemo memo) {
+		super(rule, input);
+		this.budget = budget;
+		this.memo = memo;
+	}
+	
+	@Override public ParsingResult<V> run() {
+		if (budget == null) return super.run();
+		budget.setCountingEveryMatcher(true);
+		try {
+			return super.run();
+		} finally {
+			budget.setCountingEveryMatcher(false);
+		}
+	}
+	
+	@Override protected boolean runRootContext() {
+		return runRootContext(new Handler());
+	}
+	
+	@Override protected boolean runRootContext(MatchHandler<V> handler) {
+		createRootContext(handler);
+		return handler.matchRoot(rootContext);
+	}
+	
+	@Override protected void createRootContext(MatchHandler<V> matchHandler) {
+		rootContext = new MatcherContext<V>(inputBuffer, parseErrors, matchHandler, rootMatcher);
+	}
+	
+	/**
+	 * Returns the furthest position at which a rule failed to match, or {@code -1} if no rule failed.
+	 */
+	public int getErrorIndex() {
+		return errorIndex;
+	}
+	
+	public final class Handler implements MatchHandler<V> {
+		public boolean matchRoot(MatcherContext<V> rootContext) {
+			return rootContext.runMatcher();
+		}
+		
+		public boolean match(MatcherContext<V> context) {
+			if (budget != null) budget.step(context.getCurrentIndex());
+			if (memo == null ? context.getMatcher().match(context) : memo.match(context)) return true;
+			// Predicates fail on purpose all the time; the input where they fail isn't wrong.
+			if (context.getCurrentIndex() > errorIndex && !context.inPredicate()) errorIndex = context.getCurrentIndex();
+			return false;
+		}
+	}
+}
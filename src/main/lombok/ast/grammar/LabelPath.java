@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.parboiled.Node;
+
+/**
+ * A parse tree path such as {@code "Optional/Sequence/head"}, split into its labels once.
+ * 
+ * Resolves exactly like parboiled's own path lookup: each label in the path matches any node whose label starts with it, and
+ * {@link #node(List)} descends into the first matching node only, even if nothing further down that node matches.
+ */
+final class LabelPath {
+	private static final ConcurrentMap<String, LabelPath> COMPILED = new ConcurrentHashMap<String, LabelPath>();
+	
+	private final String path;
+	private final String[] labels;
+	
+	private LabelPath(String path) {
+		this.path = path;
+		this.labels = path.split("/", -1);
+	}
+	
+	/**
+	 * Returns the compiled form of {@code path}. Every distinct path is only split once per JVM.
+	 */
+	static LabelPath of(String path) {
+		LabelPath compiled = COMPILED.get(path);
+		if (compiled != null) return compiled;
+		compiled = new LabelPath(path);
+		LabelPath raced = COMPILED.putIfAbsent(path, compiled);
+		return raced == null ? compiled : raced;
+	}
+	
+	/**
+	 * Returns all paths compiled so far.
+	 */
+	static Collection<LabelPath> compiled() {
+		return COMPILED.values();
+	}
+	
+	String getPath() {
+		return path;
+	}
+	
+	<V> Node<V> node(List<Node<V>> parents) {
+		return node(parents, 0);
+	}
+	
+	<V> List<Node<V>> nodes(List<Node<V>> parents) {
+		List<Node<V>> out = new ArrayList<Node<V>>();
+		collect(parents, 0, out);
+		return out;
+	}
+	
+	private <V> Node<V> node(List<Node<V>> parents, int depth) {
+		if (parents == null) return null;
+		String label = labels[depth];
+		for (int i = 0; i < parents.size(); i++) {
+			Node<V> child = parents.get(i);
+			if (!matches(child, label)) continue;
+			return depth == labels.length - 1 ? child : node(child.getChildren(), depth + 1);
+		}
+		return null;
+	}
+	
+	private <V> void collect(List<Node<V>> parents, int depth, List<Node<V>> out) {
+		if (parents == null) return;
+		String label = labels[depth];
+		boolean last = depth == labels.length - 1;
+		for (int i = 0; i < parents.size(); i++) {
+			Node<V> child = parents.get(i);
+			if (!matches(child, label)) continue;
+			if (last) out.add(child);
+			else collect(child.getChildren(), depth + 1, out);
+		}
+	}
+	
+	private static boolean matches(Node<?> node, String label) {
+		String nodeLabel = node.getLabel();
+		return nodeLabel != null && nodeLabel.startsWith(label);
+	}
+	
+	@Override public String toString() {
+		return path;
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import lombok.ast.AstVisitor;
+import lombok.ast.Block;
+import lombok.ast.ChildVisitor;
+import lombok.ast.Node;
+import lombok.ast.RawListAccessor;
+import lombok.ast.Statement;
+import lombok.ast.StrictListAccessor;
+
+/**
+ * A body that was skipped during a {@link ParseOptions#lazyBodies(boolean) lazy} parse. It holds on to the span of the body
+ * in the preprocessed source and parses its statements the first time they are accessed or visited.
+ */
+class LazyBlock extends Block {
+	private Source source;
+	private int bodyStart, bodyEnd;
+	
+	LazyBlock(Source source, int bodyStart, int bodyEnd) {
+		this.source = source;
+		this.bodyStart = bodyStart;
+		this.bodyEnd = bodyEnd;
+	}
+	
+	boolean isParsed() {
+		return source == null;
+	}
+	
+	/**
+	 * Moves the span by {@code delta} if it lies at or beyond {@code from}, to follow an edit of the source.
+	 */
+	void shiftBody(int from, int delta) {
+		if (bodyStart < from) return;
+		bodyStart += delta;
+		bodyEnd += delta;
+	}
+	
+	private void ensureParsed() {
+		if (source == null) return;
+		Source s = source;
+		source = null;
+		Block parsed = s.parseLazyBody(bodyStart, bodyEnd);
+		if (parsed != null) super.rawContents().migrateAllFrom(parsed.rawContents());
+	}
+	
+	@Override public RawListAccessor<Statement, Block> rawContents() {
+		ensureParsed();
+		return super.rawContents();
+	}
+	
+	@Override public StrictListAccessor<Statement, Block> astContents() {
+		ensureParsed();
+		return super.astContents();
+	}
+	
+	@Override public int childCount() {
+		ensureParsed();
+		return super.childCount();
+	}
+	
+	@Override public Node childAt(int index) {
+		ensureParsed();
+		return super.childAt(index);
+	}
+	
+	@Override public void forEachChild(ChildVisitor visitor) {
+		ensureParsed();
+		super.forEachChild(visitor);
+	}
+	
+	@Override public void accept(AstVisitor visitor) {
+		if (isParsed()) {
+			super.accept(visitor);
+			return;
+		}
+		
+		/* Visitors that don't want to see the contents shouldn't cause a parse. */
+		if (visitor.visitBlock(this)) return;
+		ensureParsed();
+		for (Node child : super.rawContents()) {
+			child.accept(visitor);
+		}
+		visitor.afterVisitBlock(this);
+		visitor.endVisit(this);
+	}
+	
+	@Override public Block copy() {
+		ensureParsed();
+		return super.copy();
+	}
+}
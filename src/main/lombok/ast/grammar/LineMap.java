@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.primitives.Ints;
+
+/**
+ * Converts between character offsets and (line, column) pairs for a piece of source text. Lines and columns both start at 0, and
+ * {@code \n}, {@code \r} and {@code \r\n} all end a line.
+ * 
+ * Lookups are binary searches over a table of line starts; use {@link #linesOf(int[])} to convert many sorted offsets in one pass.
+ */
+public class LineMap {
+	private final int[] lineStarts;
+	private final int[] lineEndings;
+	
+	public LineMap(CharSequence text) {
+		int[] starts = new int[16];
+		int[] endings = new int[16];
+		starts[0] = 0;
+		int lines = 1;
+		
+		int len = text.length();
+		for (int i = 0; i < len; i++) {
+			char c = text.charAt(i);
+			if (c != '\n' && c != '\r') continue;
+			if (lines == starts.length) {
+				starts = Arrays.copyOf(starts, lines * 2);
+				endings = Arrays.copyOf(endings, lines * 2);
+			}
+			endings[lines - 1] = i;
+			if (c == '\r' && i + 1 < len && text.charAt(i + 1) == '\n') i++;
+			starts[lines++] = i + 1;
+		}
+		
+		this.lineStarts = Arrays.copyOf(starts, lines);
+		this.lineEndings = Arrays.copyOf(endings, lines - 1);
+	}
+	
+	public int getLineCount() {
+		return lineStarts.length;
+	}
+	
+	/**
+	 * Returns the offset of the first character on the given line.
+	 * 
+	 * @throws IndexOutOfBoundsException If there is no such line.
+	 */
+	public int getLineStart(int line) {
+		return lineStarts[line];
+	}
+	
+	/**
+	 * Returns the offset of the character that ends each line (the {@code \r} for {@code \r\n}) for every line but the last.
+	 */
+	public List<Integer> getLineEndings() {
+		return Collections.unmodifiableList(Ints.asList(lineEndings));
+	}
+	
+	/**
+	 * Returns the offset of the character that ends the given line; see {@link #getLineEndings()}.
+	 */
+	int getLineEnding(int line) {
+		return lineEndings[line];
+	}
+	
+	/**
+	 * Returns how many line endings (see {@link #getLineEndings()}) are at or before {@code offset}.
+	 */
+	int endingsUpTo(int offset) {
+		int idx = Arrays.binarySearch(lineEndings, offset);
+		return idx < 0 ? -idx - 1 : idx + 1;
+	}
+	
+	public int lineOf(int offset) {
+		int idx = Arrays.binarySearch(lineStarts, offset);
+		return idx < 0 ? Math.max(0, -idx - 2) : idx;
+	}
+	
+	public int columnOf(int offset) {
+		return offset - lineStarts[lineOf(offset)];
+	}
+	
+	/**
+	 * @throws IndexOutOfBoundsException If there is no such line.
+	 */
+	public int offsetOf(int line, int column) {
+		return lineStarts[line] + column;
+	}
+	
+	/**
+	 * Returns the line of each offset. The offsets must be sorted in ascending order, which allows converting all of them in a single pass over the table.
+	 */
+	public int[] linesOf(int[] sortedOffsets) {
+		int[] lines = new int[sortedOffsets.length];
+		int line = 0;
+		for (int i = 0; i < sortedOffsets.length; i++) {
+			int offset = sortedOffsets[i];
+			if (i > 0 && offset < sortedOffsets[i - 1]) throw new IllegalArgumentException("offsets aren't sorted at index " + i);
+			while (line + 1 < lineStarts.length && lineStarts[line + 1] <= offset) line++;
+			lines[i] = line;
+		}
+		return lines;
+	}
+	
+	/**
+	 * Returns the offsets of the last character of each line separator, which is what ecj stores as {@code lineSeparatorPositions}.
+	 */
+	public int[] getLineSeparatorEnds() {
+		int[] ends = new int[lineStarts.length - 1];
+		for (int i = 0; i < ends.length; i++) ends[i] = lineStarts[i + 1] - 1;
+		return ends;
+	}
+}
@@ -23,11 +23,10 @@ package lombok.ast.grammar;
 
 import lombok.ast.Node;
 
-import org.parboiled.BaseParser;
 import org.parboiled.Rule;
 import org.parboiled.annotations.SuppressSubnodes;
 
-public class LiteralsParser extends BaseParser<Node> {
+public class LiteralsParser extends AbstractParser {
 	final ParserGroup group;
 	final LiteralsActions actions;
 	
@@ -81,7 +80,7 @@ public class LiteralsParser extends BaseParser<Node> {
 		return Sequence(
 				Ch('\\'),
 				FirstOf(
-						Sequence(Optional(CharRange('0', '3')), Optional(CharRange('0', '7')), CharRange('0', '7')),
+						Sequence(Optional(zeroToThree()), Optional(octalDigit()), octalDigit()),
 						Sequence(TestNot("\r\n"), Any())));
 	}
 	
@@ -118,7 +117,7 @@ public class LiteralsParser extends BaseParser<Node> {
 	}
 	
 	Rule octalDigit() {
-		return FirstOf(Ch('0'), Ch('1'), Ch('2'), Ch('3'), Ch('4'), Ch('5'), Ch('6'), Ch('7'));
+		return new CharClasses.CharClassMatcher(CharClasses.OCTAL_DIGIT);
 	}
 	
 	/**
@@ -139,7 +138,7 @@ public class LiteralsParser extends BaseParser<Node> {
 	 */
 	public Rule numberLiteral() {
 		return Sequence(
-				Test(Sequence(Optional(Ch('.')), CharRange('0', '9'))),
+				Test(Sequence(Optional(Ch('.')), digit())),
 				FirstOf(hexLiteral(), fpLiteral()),
 				set(lastValue()),
 				group.basics.optWS());
@@ -201,11 +200,10 @@ public class LiteralsParser extends BaseParser<Node> {
 	}
 	
 	Rule digit() {
-		return FirstOf(Ch('0'), Ch('1'), Ch('2'), Ch('3'), Ch('4'), Ch('5'), Ch('6'), Ch('7'), Ch('8'), Ch('9'), Ch('0'));
+		return new CharClasses.CharClassMatcher(CharClasses.DIGIT);
 	}
 	
 	Rule hexDigit() {
-		return FirstOf(digit(),
-				CharIgnoreCase('a'), CharIgnoreCase('b'), CharIgnoreCase('c'), CharIgnoreCase('d'), CharIgnoreCase('e'), CharIgnoreCase('f'));
+		return new CharClasses.CharClassMatcher(CharClasses.HEX_DIGIT);
 	}
 }
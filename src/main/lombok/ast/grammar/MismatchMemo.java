@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.parboiled.MatcherContext;
+import org.parboiled.Rule;
+import org.parboiled.matchers.Matcher;
+
+/**
+ * Remembers, for a single parse run, at which input positions each memoizing rule (see {@link ExpressionsParser#mismatchMemoizingRules()}) failed to match,
+ * so a rule that is tried again at the same position fails straight away.
+ * 
+ * The memo sits in the match handler of a runner that doesn't recover from errors (see {@link FailFastParseRunner}) and leaves the rules themselves
+ * alone, so the grammar, and with it the way the recovering runner repairs broken input, is the same whether or not mismatches are memoized.
+ * 
+ * Only mismatches are remembered. A rule that matched produced AST nodes which the surrounding actions go on to attach to other nodes, so its result can't be handed out twice.
+ */
+final class MismatchMemo {
+	private final List<Rule> rules;
+	private final Map<Matcher<?>, Integer> ids = new IdentityHashMap<Matcher<?>, Integer>();
+	private final BitSet[] mismatches;
+	private int hits, recorded;
+	
+	MismatchMemo(List<Rule> rules) {
+		this.rules = rules;
+		this.mismatches = new BitSet[rules.size()];
+	}
+	
+	/**
+	 * Runs the matcher of {@code context}, unless it is a memoizing rule that already failed at the current position.
+	 */
+	<V> boolean match(MatcherContext<V> context) {
+		Matcher<V> matcher = context.getMatcher();
+		int rule = ruleOf(matcher);
+		if (rule < 0) return matcher.match(context);
+		int index = context.getCurrentIndex();
+		if (isMismatch(rule, index)) return false;
+		if (matcher.match(context)) return true;
+		recordMismatch(rule, index);
+		return false;
+	}
+	
+	private int ruleOf(Matcher<?> matcher) {
+		Integer id = ids.get(matcher);
+		if (id == null) {
+			id = rules.indexOf(matcher);
+			ids.put(matcher, id);
+		}
+		return id;
+	}
+	
+	boolean isMismatch(int rule, int index) {
+		if (mismatches[rule] == null || !mismatches[rule].get(index)) return false;
+		hits++;
+		return true;
+	}
+	
+	void recordMismatch(int rule, int index) {
+		if (mismatches[rule] == null) mismatches[rule] = new BitSet();
+		mismatches[rule].set(index);
+		recorded++;
+	}
+	
+	/**
+	 * Returns how often a rule was skipped because it had already failed at that position.
+	 */
+	int getHits() {
+		return hits;
+	}
+	
+	int getRecorded() {
+		return recorded;
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import lombok.Getter;
+
+/**
+ * Keeps track of the limits set in the {@link ParseOptions} during a single parse run, and stops the run by throwing {@link Exceeded}
+ * once it is cancelled or runs out of budget.
+ * 
+ * Every matcher invocation is a step. The matcher invocation budget is checked on every step, but looking at the clock and the
+ * cancellation token costs more than a matcher, so that's done once every {@link #CHECK_INTERVAL} steps.
+ * 
+ * parboiled's recovering runner doesn't let us see its matchers, so while it runs the grammar reports each run of its whitespace matcher
+ * instead, which happens once per token. Each of those is charged as {@link #STEPS_PER_TOKEN} steps, so that a limit stands for about the
+ * same amount of work with either runner.
+ */
+final class ParseBudget {
+	static final int CHECK_INTERVAL = 1024;
+	
+	/**
+	 * The number of steps a run of the whitespace matcher is charged as when the runner doesn't count matchers itself. A valid parse takes
+	 * a few hundred matcher invocations per line, which is on the order of this many per token.
+	 */
+	static final int STEPS_PER_TOKEN = 32;
+	
+	private final CancellationToken cancellationToken;
+	private final long maxSteps;
+	private final long deadline;
+	private long steps;
+	private long nextCheck = CHECK_INTERVAL;
+	
+	/**
+	 * Set while a runner that sees every matcher invocation is counting steps; the runs of the whitespace matcher reported through
+	 * {@link #stepUnlessCounted(int)} are already among those.
+	 */
+	private boolean countingEveryMatcher;
+	
+	private ParseBudget(CancellationToken cancellationToken, long maxSteps, long deadline) {
+		this.cancellationToken = cancellationToken;
+		this.maxSteps = maxSteps;
+		this.deadline = deadline;
+	}
+	
+	/**
+	 * Returns a fresh budget for a parse run with {@code options}, or {@code null} if the options don't limit parsing at all.
+	 */
+	static ParseBudget of(ParseOptions options) {
+		CancellationToken token = options.getCancellationToken();
+		long maxSteps = options.getMaxMatcherInvocations();
+		long deadline = options.getDeadline();
+		if (token == null && maxSteps <= 0 && deadline <= 0) return null;
+		ParseBudget budget = new ParseBudget(token, maxSteps <= 0 ? Long.MAX_VALUE : maxSteps, deadline);
+		budget.checkClock(0);
+		return budget;
+	}
+	
+	void step(int index) {
+		charge(1, index);
+	}
+	
+	/**
+	 * Charges a run of the whitespace matcher as {@link #STEPS_PER_TOKEN} steps, unless the runner is already counting every matcher.
+	 */
+	void stepUnlessCounted(int index) {
+		if (!countingEveryMatcher) charge(STEPS_PER_TOKEN, index);
+	}
+	
+	private void charge(int cost, int index) {
+		steps += cost;
+		if (steps > maxSteps) throw new Exceeded(AbortedParseProblem.Reason.MATCHER_INVOCATIONS, index);
+		if (steps >= nextCheck) {
+			nextCheck = steps + CHECK_INTERVAL;
+			checkClock(index);
+		}
+	}
+	
+	void setCountingEveryMatcher(boolean countingEveryMatcher) {
+		this.countingEveryMatcher = countingEveryMatcher;
+	}
+	
+	private void checkClock(int index) {
+		if (cancellationToken != null && cancellationToken.isCancelled()) throw new Exceeded(AbortedParseProblem.Reason.CANCELLED, index);
+		if (deadline > 0 && System.currentTimeMillis() >= deadline) throw new Exceeded(AbortedParseProblem.Reason.DEADLINE, index);
+	}
+	
+	/**
+	 * Thrown out of the matcher that used up the budget, all the way out of the parse runner. It carries no stack trace, as it's never printed.
+	 */
+	static final class Exceeded extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+		
+		@Getter private final AbortedParseProblem.Reason reason;
+		@Getter private final int index;
+		
+		Exceeded(AbortedParseProblem.Reason reason, int index) {
+			super(reason.name());
+			this.reason = reason;
+			this.index = index;
+		}
+		
+		@Override public synchronized Throwable fillInStackTrace() {
+			return this;
+		}
+		
+		/**
+		 * parboiled wraps exceptions thrown by matchers and actions; this digs ours back up, or returns {@code null} if {@code t} isn't caused by one.
+		 */
+		static Exceeded find(Throwable t) {
+			for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+				if (cause instanceof Exceeded) return (Exceeded) cause;
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.ast.Version;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+/**
+ * Remembers the result of parsing compilation units, keyed on a hash of the raw input and the lombok.ast version, so that parsing
+ * the same text again skips the parser entirely.
+ * 
+ * Entries are kept as serialized bytes rather than as node trees, because nodes are mutable and belong to the {@link Source} that
+ * holds them; every hit builds a fresh tree. The most recently used entries are kept in memory. If a directory is provided, entries
+ * are also stored there, one file per entry, so they survive across runs. Anything that goes wrong while reading or writing the
+ * directory is treated as a miss. Instances are safe to share between threads.
+ * 
+ * Sources whose options change the result of the parse, such as fail fast mode or lazy bodies, are parsed as usual and don't touch the
+ * cache at all, so a cached entry is always the result of a default parse.
+ */
+public class ParseCache {
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final String EXTENSION = ".ast";
+	
+	private final File directory;
+	private final Map<String, byte[]> memory;
+	private final AtomicInteger hits = new AtomicInteger(), misses = new AtomicInteger();
+	
+	/**
+	 * Creates a cache that only keeps entries in memory.
+	 * 
+	 * @param maxEntries The amount of entries to keep in memory; the least recently used entry is dropped first.
+	 */
+	public ParseCache(int maxEntries) {
+		this(maxEntries, null);
+	}
+	
+	/**
+	 * @param maxEntries The amount of entries to keep in memory; the least recently used entry is dropped first. May be 0.
+	 * @param directory The directory to store entries in so they can be used by later runs, or {@code null} to only cache in memory.
+	 *    It is created if it doesn't exist yet.
+	 */
+	public ParseCache(final int maxEntries, File directory) {
+		if (maxEntries < 0) throw new IllegalArgumentException("maxEntries must not be negative: " + maxEntries);
+		this.directory = directory;
+		if (directory != null) directory.mkdirs();
+		this.memory = new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			
+			@Override protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+	
+	/**
+	 * Makes {@code source} parsed as a compilation unit, either by restoring an earlier parse of the same input or by parsing it
+	 * and storing the result. Does nothing if {@code source} has already been parsed.
+	 */
+	public void parseCompilationUnit(Source source) {
+		if (source.isParsed()) return;
+		if (!source.getOptions().isCacheable()) {
+			misses.incrementAndGet();
+			source.parseCompilationUnit();
+			return;
+		}
+		
+		String key = keyOf(source.getRawInput());
+		byte[] data = lookup(key);
+		if (data != null) {
+			try {
+				AstCodec.read(data, source);
+				hits.incrementAndGet();
+				return;
+			} catch (IOException e) {
+				forget(key);
+			}
+		}
+		
+		misses.incrementAndGet();
+		source.parseCompilationUnit();
+		for (ParseProblem problem : source.getProblems()) {
+			// The input wasn't parsed completely, so there's nothing worth keeping.
+			if (problem instanceof AbortedParseProblem) return;
+		}
+		try {
+			store(key, AstCodec.write(source.getNodes(), source.getComments(), source.getProblems()));
+		} catch (IOException e) {
+			// Can't be serialized; it will simply be parsed again next time.
+		}
+	}
+	
+	public int getHits() {
+		return hits.get();
+	}
+	
+	public int getMisses() {
+		return misses.get();
+	}
+	
+	/**
+	 * Drops all entries kept in memory. Entries stored in the directory are left alone.
+	 */
+	public void clearMemory() {
+		synchronized (memory) {
+			memory.clear();
+		}
+	}
+	
+	static String keyOf(String rawInput) {
+		return Hashing.sha1().newHasher()
+				.putString(Version.getVersion(), UTF_8)
+				.putByte((byte) 0)
+				.putString(rawInput, UTF_8)
+				.hash().toString();
+	}
+	
+	private byte[] lookup(String key) {
+		synchronized (memory) {
+			byte[] data = memory.get(key);
+			if (data != null) return data;
+		}
+		if (directory == null) return null;
+		
+		File file = new File(directory, key + EXTENSION);
+		if (!file.isFile()) return null;
+		try {
+			byte[] data = Files.toByteArray(file);
+			synchronized (memory) {
+				memory.put(key, data);
+			}
+			return data;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+	
+	private void store(String key, byte[] data) {
+		synchronized (memory) {
+			memory.put(key, data);
+		}
+		if (directory == null) return;
+		
+		File file = new File(directory, key + EXTENSION);
+		File temp = null;
+		try {
+			temp = File.createTempFile(key, ".tmp", directory);
+			Files.write(data, temp);
+			if (temp.renameTo(file)) temp = null;
+		} catch (IOException e) {
+			// The memory entry is still there; the next run will have to parse this input again.
+		} finally {
+			if (temp != null) temp.delete();
+		}
+	}
+	
+	private void forget(String key) {
+		synchronized (memory) {
+			memory.remove(key);
+		}
+		if (directory != null) new File(directory, key + EXTENSION).delete();
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+/**
+ * Tunes how a {@link Source} is parsed. Options are read when parsing starts; changing them afterwards has no effect until the source is cleared and parsed again.
+ */
+public class ParseOptions {
+	private boolean lazyBodies;
+	private boolean lean;
+	private boolean memoizeMismatches;
+	private boolean precedenceClimbing;
+	private SymbolTable symbolTable;
+	private boolean failFast;
+	private CancellationToken cancellationToken;
+	private long maxMatcherInvocations;
+	private long deadline;
+	
+	/**
+	 * If set, method, constructor and initializer bodies are skipped during the structural parse by jumping to their matching closing brace.
+	 * Each skipped body becomes a {@link lombok.ast.Block} whose statements are parsed the first time they are accessed or visited.
+	 * 
+	 * Positions end up the same as with a full parse, but problems inside a body only show up in {@link Source#getProblems()} once that body
+	 * has been parsed, and {@link Source#getSourceStructures()} does not cover body contents.
+	 */
+	public ParseOptions lazyBodies(boolean lazyBodies) {
+		this.lazyBodies = lazyBodies;
+		return this;
+	}
+	
+	public boolean isLazyBodies() {
+		return lazyBodies;
+	}
+	
+	/**
+	 * If set, the parboiled parse tree and the bookkeeping that refers to it are dropped as soon as the AST has been built, so a parsed
+	 * {@link Source} no longer holds on to them. {@link Source#getSourceStructures()} is not available for lean sources.
+	 * 
+	 * The parse tree is still built in full while parsing, because the grammar actions read their operands from it; this option changes
+	 * what a source retains afterwards, not the time or the peak memory of the parse itself.
+	 */
+	public ParseOptions lean(boolean lean) {
+		this.lean = lean;
+		return this;
+	}
+	
+	public boolean isLean() {
+		return lean;
+	}
+	
+	/**
+	 * If set, grammar rules that are known to fail repeatedly at the same position remember where they failed during a parse run. The result
+	 * is the same either way.
+	 * 
+	 * Remembered positions don't survive error recovery, so the memoizing run doesn't recover: input with syntax errors is parsed a second time
+	 * without the memo, and ends up costing more than without this option.
+	 */
+	public ParseOptions memoizeMismatches(boolean memoizeMismatches) {
+		this.memoizeMismatches = memoizeMismatches;
+		return this;
+	}
+	
+	public boolean isMemoizeMismatches() {
+		return memoizeMismatches;
+	}
+	
+	/**
+	 * If set, the binary operators of an expression are parsed as one flat chain of operands and operators which is then arranged by precedence,
+	 * instead of through a separate grammar rule for every precedence level. The resulting tree is the same.
+	 */
+	public ParseOptions precedenceClimbing(boolean precedenceClimbing) {
+		this.precedenceClimbing = precedenceClimbing;
+		return this;
+	}
+	
+	public boolean isPrecedenceClimbing() {
+		return precedenceClimbing;
+	}
+	
+	/**
+	 * Interns identifier text through {@code symbolTable}, which can be shared with other sources. If {@code null} (the default), each source
+	 * gets a table of its own.
+	 */
+	public ParseOptions symbolTable(SymbolTable symbolTable) {
+		this.symbolTable = symbolTable;
+		return this;
+	}
+	
+	public SymbolTable getSymbolTable() {
+		return symbolTable;
+	}
+	
+	/**
+	 * If set, input that doesn't parse isn't parsed again with error recovery: the parse stops at the first syntax error and reports just that one
+	 * {@link ParseProblem}, without any nodes. Use it to learn whether a source is valid and where it first goes wrong; parse again without
+	 * this option to get all problems and a (partial) tree.
+	 */
+	public ParseOptions failFast(boolean failFast) {
+		this.failFast = failFast;
+		return this;
+	}
+	
+	public boolean isFailFast() {
+		return failFast;
+	}
+	
+	/**
+	 * Once {@code cancellationToken} is cancelled, parses using these options stop soon after, with an {@link AbortedParseProblem} and no nodes.
+	 */
+	public ParseOptions cancellationToken(CancellationToken cancellationToken) {
+		this.cancellationToken = cancellationToken;
+		return this;
+	}
+	
+	public CancellationToken getCancellationToken() {
+		return cancellationToken;
+	}
+	
+	/**
+	 * Stops any single parse run (such as that of a compilation unit, or of one lazily parsed body) that invokes more than {@code maxMatcherInvocations}
+	 * grammar matchers, with an {@link AbortedParseProblem} and no nodes. A valid source typically takes a few hundred invocations per line.
+	 * {@code 0} (the default) means no limit.
+	 * 
+	 * While recovering from syntax errors the individual matchers can't be counted. Instead, every token the recovering parser reads
+	 * (precisely: every run of the whitespace matcher that follows a token) is charged as 32 invocations.
+	 */
+	public ParseOptions maxMatcherInvocations(long maxMatcherInvocations) {
+		this.maxMatcherInvocations = maxMatcherInvocations;
+		return this;
+	}
+	
+	public long getMaxMatcherInvocations() {
+		return maxMatcherInvocations;
+	}
+	
+	/**
+	 * Stops parsing with an {@link AbortedParseProblem} and no nodes once {@code System.currentTimeMillis()} reaches {@code deadline}. The deadline
+	 * is absolute, so it also applies to bodies that are parsed lazily after it has passed. {@code 0} (the default) means no deadline.
+	 */
+	public ParseOptions deadline(long deadline) {
+		this.deadline = deadline;
+		return this;
+	}
+	
+	public long getDeadline() {
+		return deadline;
+	}
+	
+	/**
+	 * Returns whether parsing with these options gives the same nodes, comments and problems as parsing with the defaults, unless the parse
+	 * is cut short. Only such parses are served from and stored in a {@link ParseCache}.
+	 */
+	boolean isCacheable() {
+		return !lazyBodies && !lean && !failFast;
+	}
+}
@@ -21,26 +21,164 @@
  */
 package lombok.ast.grammar;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+import java.util.Properties;
+
 import lombok.Getter;
+import lombok.ast.Node;
 
+import org.parboiled.BaseParser;
 import org.parboiled.Parboiled;
 
+import com.google.common.collect.Maps;
+
 public class ParserGroup {
-	@Getter private final Source source;
+	private static final ThreadLocal<ParserGroup> POOL = new ThreadLocal<ParserGroup>();
+	
+	/**
+	 * The resource, next to this class, that lists the name of the generated class for each parser class. The {@code precompileParsers}
+	 * build step writes it along with the classes, using the names parboiled actually gave them.
+	 */
+	static final String PRECOMPILED_INDEX = "precompiledParsers.properties";
+	
+	/**
+	 * The generated parser classes found on the classpath, by parser class. The {@code precompileParsers} build step generates them into a
+	 * directory of their own, which only {@code dist} adds to the jar.
+	 * Setting the system property {@code lombok.ast.precompiledParsers} to {@code false} ignores them.
+	 */
+	private static final Map<Class<?>, Constructor<?>> PRECOMPILED = findPrecompiledParsers(
+			BasicsParser.class, LiteralsParser.class, TypesParser.class, ExpressionsParser.class, StatementsParser.class, StructuresParser.class);
+	
+	@Getter private Source source;
 	public final BasicsParser basics;
 	public final LiteralsParser literals;
 	public final TypesParser types;
 	public final ExpressionsParser expressions;
 	public final StatementsParser statements;
 	public final StructuresParser structures;
+	private boolean inUse;
 	
 	public ParserGroup(Source source) {
 		this.source = source;
-		basics = Parboiled.createParser(BasicsParser.class, this);
-		literals = Parboiled.createParser(LiteralsParser.class, this);
-		types = Parboiled.createParser(TypesParser.class, this);
-		expressions = Parboiled.createParser(ExpressionsParser.class, this);
-		statements = Parboiled.createParser(StatementsParser.class, this);
-		structures = Parboiled.createParser(StructuresParser.class, this);
+		basics = createParser(BasicsParser.class);
+		literals = createParser(LiteralsParser.class);
+		types = createParser(TypesParser.class);
+		expressions = createParser(ExpressionsParser.class);
+		statements = createParser(StatementsParser.class);
+		structures = createParser(StructuresParser.class);
+	}
+	
+	/**
+	 * Instantiates the precompiled parser class if there is one, which skips parboiled's bytecode generation entirely.
+	 * Otherwise parboiled generates (the first time) and instantiates it.
+	 */
+	private <P extends BaseParser<Node>> P createParser(Class<P> parserClass) {
+		Constructor<?> precompiled = PRECOMPILED.get(parserClass);
+		if (precompiled == null) return Parboiled.createParser(parserClass, this);
+		
+		try {
+			return parserClass.cast(precompiled.newInstance(this));
+		} catch (InvocationTargetException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw new IllegalStateException(cause);
+		} catch (Exception e) {
+			throw new IllegalStateException("Can't instantiate precompiled parser " + precompiled.getDeclaringClass().getName(), e);
+		}
+	}
+	
+	private static Map<Class<?>, Constructor<?>> findPrecompiledParsers(Class<?>... parserClasses) {
+		Map<Class<?>, Constructor<?>> out = Maps.newHashMap();
+		if ("false".equals(System.getProperty("lombok.ast.precompiledParsers"))) return out;
+		
+		Properties index = readPrecompiledIndex();
+		// Not a distribution build; parboiled will generate all of them.
+		if (index == null) return out;
+		
+		for (Class<?> parserClass : parserClasses) {
+			String name = index.getProperty(parserClass.getName());
+			if (name == null) {
+				warnNotPrecompiled(parserClass, "it isn't listed in " + PRECOMPILED_INDEX);
+				continue;
+			}
+			try {
+				Class<?> extended = Class.forName(name, true, parserClass.getClassLoader());
+				if (!parserClass.isAssignableFrom(extended)) {
+					warnNotPrecompiled(parserClass, name + " doesn't extend it");
+					continue;
+				}
+				Constructor<?> constructor = extended.getDeclaredConstructor(ParserGroup.class);
+				constructor.setAccessible(true);
+				out.put(parserClass, constructor);
+			} catch (ClassNotFoundException e) {
+				warnNotPrecompiled(parserClass, name + " is missing");
+			} catch (NoSuchMethodException e) {
+				warnNotPrecompiled(parserClass, name + " doesn't match this version of the parser");
+			} catch (LinkageError e) {
+				warnNotPrecompiled(parserClass, name + " can't be loaded: " + e);
+			}
+		}
+		return out;
+	}
+	
+	private static Properties readPrecompiledIndex() {
+		InputStream in = ParserGroup.class.getResourceAsStream(PRECOMPILED_INDEX);
+		if (in == null) return null;
+		Properties index = new Properties();
+		try {
+			try {
+				index.load(in);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			System.err.printf("Can't read %s, parboiled will generate the parser classes: %s\n", PRECOMPILED_INDEX, e);
+			return null;
+		}
+		return index;
+	}
+	
+	private static void warnNotPrecompiled(Class<?> parserClass, String reason) {
+		System.err.printf("Precompiled parser for %s not used, parboiled will generate it: %s\n", parserClass.getName(), reason);
+	}
+	
+	/**
+	 * Returns a parser group bound to {@code source}. Each thread keeps one group around and rebinds it to the next source, so the
+	 * parsers and their rule graphs are built once per thread rather than once per parse. If that group is already busy (a parse started
+	 * from within a parse), a fresh one is created instead. Call {@link #release()} when the parse run is done.
+	 */
+	static ParserGroup obtain(Source source) {
+		ParserGroup group = POOL.get();
+		if (group == null || group.inUse) {
+			group = new ParserGroup(source);
+			if (POOL.get() == null) POOL.set(group);
+		} else {
+			group.rebind(source);
+		}
+		group.inUse = true;
+		return group;
+	}
+	
+	/**
+	 * Marks this group as available for the next call to {@link #obtain(Source)} on this thread, and drops the reference to the source.
+	 */
+	void release() {
+		rebind(null);
+		inUse = false;
+	}
+	
+	private void rebind(Source source) {
+		this.source = source;
+		basics.actions.rebind(source);
+		literals.actions.rebind(source);
+		types.actions.rebind(source);
+		expressions.actions.rebind(source);
+		statements.actions.rebind(source);
+		structures.actions.rebind(source);
 	}
 }
@@ -37,12 +37,22 @@ import com.google.common.collect.Lists;
 /**
  * Like the {@code BasicParseRunner} but will also track statistics on the parse run which you can retrieve by calling {@link #getOverviewReport()}
  * or {@link #getExtendedReport(int)} after a parse run.
+ * 
+ * This keeps a report entry for every single rule invocation, which makes it too slow and too memory hungry for anything but small files.
+ * Use {@link RuleProfilingParseRunner} for per-rule totals. If given a {@link MismatchMemo}, memoizing rules that already failed at a position
+ * fail there again at once.
  */
 public class ProfilerParseRunner<V> extends BasicParseRunner<V> {
 	private ReportEntry<V> rootReport;
+	private final MismatchMemo memo;
 	
 	public ProfilerParseRunner(Rule rule, String input) {
+		this(rule, input, null);
+	}
+	
+	ProfilerParseRunner(Rule rule, String input, MismatchMemo memo) {
 		super(rule, input);
+		this.memo = memo;
 	}
 	
 	protected boolean runRootContext() {
@@ -157,7 +167,7 @@ public class ProfilerParseRunner<V> extends BasicParseRunner<V> {
 			path += String.format("/%s[%d]", context.getMatcher().getLabel(), context.getCurrentIndex());
 			ReportEntry<V> report = new ReportEntry<V>(path);
 			stack.add(report);
-			boolean result = context.getMatcher().match(context);
+			boolean result = memo == null ? context.getMatcher().match(context) : memo.match(context);
 			report.setSucceeded(result);
 			stack.remove(stack.size() -1);
 			if (stack.isEmpty()) rootReport = report;
@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Per-rule statistics gathered by a {@link RuleProfilingParseRunner}, keyed on rule label.
+ * 
+ * Profiles of separate parse runs can be {@link #merge(RuleProfile) merged}, so a whole corpus can be profiled into one report, and
+ * exported as JSON or CSV so the profiles of two releases can be compared with other tools.
+ */
+public final class RuleProfile {
+	private final Map<String, Entry> entries = Maps.newHashMap();
+	
+	/**
+	 * The counters for all rules sharing the same label.
+	 * 
+	 * Time is inclusive: it covers all sub rules. A rule that (indirectly) calls itself is only timed for its outermost invocation,
+	 * so recursive rules aren't counted more than once.
+	 */
+	@Getter
+	public static final class Entry {
+		private final String label;
+		private long invocations, successes, charsConsumed, charsBacktracked, nanos;
+		
+		Entry(String label) {
+			this.label = label;
+		}
+		
+		public long getFailures() {
+			return invocations - successes;
+		}
+		
+		void add(long invocations, long successes, long charsConsumed, long charsBacktracked, long nanos) {
+			this.invocations += invocations;
+			this.successes += successes;
+			this.charsConsumed += charsConsumed;
+			this.charsBacktracked += charsBacktracked;
+			this.nanos += nanos;
+		}
+	}
+	
+	private static final Comparator<Entry> MOST_EXPENSIVE_FIRST = new Comparator<Entry>() {
+		@Override public int compare(Entry a, Entry b) {
+			if (a.nanos != b.nanos) return a.nanos < b.nanos ? +1 : -1;
+			if (a.invocations != b.invocations) return a.invocations < b.invocations ? +1 : -1;
+			return a.label.compareTo(b.label);
+		}
+	};
+	
+	Entry entry(String label) {
+		Entry entry = entries.get(label);
+		if (entry == null) {
+			entry = new Entry(label);
+			entries.put(label, entry);
+		}
+		return entry;
+	}
+	
+	/**
+	 * Adds all counters of {@code other} to this profile.
+	 */
+	public RuleProfile merge(RuleProfile other) {
+		for (Entry e : other.entries.values()) {
+			entry(e.label).add(e.invocations, e.successes, e.charsConsumed, e.charsBacktracked, e.nanos);
+		}
+		return this;
+	}
+	
+	/**
+	 * Returns the entries, most expensive (in inclusive time) first.
+	 */
+	public List<Entry> getEntries() {
+		List<Entry> list = Lists.newArrayList(entries.values());
+		Collections.sort(list, MOST_EXPENSIVE_FIRST);
+		return list;
+	}
+	
+	public Entry getEntry(String label) {
+		return entries.get(label);
+	}
+	
+	/**
+	 * Writes the entries as a JSON array of objects, one per line, most expensive first.
+	 */
+	public void writeJson(Appendable out) throws IOException {
+		out.append("[");
+		boolean first = true;
+		for (Entry e : getEntries()) {
+			out.append(first ? "\n" : ",\n");
+			first = false;
+			out.append("{\"rule\": ");
+			appendJsonString(out, e.label);
+			out.append(", \"invocations\": ").append(String.valueOf(e.invocations));
+			out.append(", \"successes\": ").append(String.valueOf(e.successes));
+			out.append(", \"failures\": ").append(String.valueOf(e.getFailures()));
+			out.append(", \"charsConsumed\": ").append(String.valueOf(e.charsConsumed));
+			out.append(", \"charsBacktracked\": ").append(String.valueOf(e.charsBacktracked));
+			out.append(", \"nanos\": ").append(String.valueOf(e.nanos));
+			out.append("}");
+		}
+		out.append("\n]\n");
+	}
+	
+	/**
+	 * Writes the entries as CSV with a header line, most expensive first.
+	 */
+	public void writeCsv(Appendable out) throws IOException {
+		out.append("rule,invocations,successes,failures,charsConsumed,charsBacktracked,nanos\n");
+		for (Entry e : getEntries()) {
+			appendCsvField(out, e.label);
+			out.append(",").append(String.valueOf(e.invocations));
+			out.append(",").append(String.valueOf(e.successes));
+			out.append(",").append(String.valueOf(e.getFailures()));
+			out.append(",").append(String.valueOf(e.charsConsumed));
+			out.append(",").append(String.valueOf(e.charsBacktracked));
+			out.append(",").append(String.valueOf(e.nanos));
+			out.append("\n");
+		}
+	}
+	
+	public String toJson() {
+		StringBuilder out = new StringBuilder();
+		try {
+			writeJson(out);
+		} catch (IOException e) {
+			throw new IllegalStateException("StringBuilder doesn't throw IOExceptions", e);
+		}
+		return out.toString();
+	}
+	
+	public String toCsv() {
+		StringBuilder out = new StringBuilder();
+		try {
+			writeCsv(out);
+		} catch (IOException e) {
+			throw new IllegalStateException("StringBuilder doesn't throw IOExceptions", e);
+		}
+		return out.toString();
+	}
+	
+	private static void appendJsonString(Appendable out, String value) throws IOException {
+		out.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"': out.append("\\\""); break;
+			case '\\': out.append("\\\\"); break;
+			case '\n': out.append("\\n"); break;
+			case '\r': out.append("\\r"); break;
+			case '\t': out.append("\\t"); break;
+			default:
+				if (c < 0x20) out.append(String.format("\\u%04x", (int) c));
+				else out.append(c);
+			}
+		}
+		out.append('"');
+	}
+	
+	private static void appendCsvField(Appendable out, String value) throws IOException {
+		boolean quote = false;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+				quote = true;
+				break;
+			}
+		}
+		if (!quote) {
+			out.append(value);
+			return;
+		}
+		out.append('"').append(value.replace("\"", "\"\"")).append('"');
+	}
+}
@@ -21,27 +21,36 @@
  */
 package lombok.ast.grammar;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
-import java.util.TreeMap;
 
 import lombok.Getter;
+import lombok.ast.Block;
 import lombok.ast.Comment;
+import lombok.ast.CompilationUnit;
+import lombok.ast.EnumConstant;
+import lombok.ast.EnumTypeBody;
 import lombok.ast.Expression;
 import lombok.ast.ForwardingAstVisitor;
 import lombok.ast.JavadocContainer;
 import lombok.ast.Node;
+import lombok.ast.NormalTypeBody;
 import lombok.ast.Position;
+import lombok.ast.Switch;
+import lombok.ast.TypeMember;
 
 import org.parboiled.Context;
 import org.parboiled.RecoveringParseRunner;
+import org.parboiled.Rule;
 import org.parboiled.errors.ParseError;
+import org.parboiled.support.InputBuffer;
 import org.parboiled.support.ParsingResult;
 
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
@@ -50,19 +59,32 @@ import com.google.common.collect.Maps;
 
 public class Source {
 	@Getter private final String name;
-	@Getter private final String rawInput;
+	@Getter private String rawInput;
 	private List<Node> nodes;
 	private List<ParseProblem> problems;
 	private List<Comment> comments;
 	private boolean parsed;
 	private ParsingResult<Node> parsingResult;
 	
-	private TreeMap<Integer, Integer> positionDeltas;
+	private int[] deltaPositions, deltaSums;
+	private int deltaCount;
 	private Map<org.parboiled.Node<Node>, Node> registeredStructures;
 	private Map<org.parboiled.Node<Node>, List<Comment>> registeredComments;
 	private String preprocessed;
+	private TokenStream tokens;
+	private SymbolTable symbols;
+	private ParsingResult<Node> failedFast;
+	private int failedFastIndex;
+	private String failedFastInput;
+	private ParseBudget budget;
+	private ParseBudget.Exceeded aborted;
 	private Map<Node, Collection<SourceStructure>> cachedSourceStructures;
-	private List<Integer> lineEndings;
+	private LineMap lineMap;
+	private ParseOptions options = new ParseOptions();
+	private int[] braceOpenings, braceClosings;
+	private boolean parsingLazyBody;
+	private int parseOffset;
+	private EntryPoint entryPoint = EntryPoint.COMPILATION_UNIT;
 	
 	public Source(String rawInput, String name) {
 		this.rawInput = rawInput;
@@ -85,134 +107,390 @@ public class Source {
 		nodes = Lists.newArrayList();
 		problems = Lists.newArrayList();
 		comments = Lists.newArrayList();
-		lineEndings = ImmutableList.of();
+		lineMap = null;
 		parsed = false;
 		parsingResult = null;
-		positionDeltas = Maps.newTreeMap();
-		registeredComments = new MapMaker().weakKeys().makeMap();
-		registeredStructures = new MapMaker().weakKeys().makeMap();
+		deltaPositions = deltaSums = new int[0];
+		deltaCount = 0;
+		registeredComments = null;
+		registeredStructures = null;
 		cachedSourceStructures = null;
+		braceOpenings = null;
+		braceClosings = null;
+		tokens = null;
+		symbols = null;
+		failedFast = null;
+		failedFastInput = null;
+		aborted = null;
 	}
 	
 	public String getOverviewProfileInformation() {
 		clear();
+		entryPoint = EntryPoint.COMPILATION_UNIT;
 		preProcess();
-		ParserGroup group = new ParserGroup(this);
-		ProfilerParseRunner<Node> runner = new ProfilerParseRunner<Node>(group.structures.compilationUnitEoi(), preprocessed);
-		this.parsingResult = runner.run();
+		ParserGroup group = ParserGroup.obtain(this);
+		MismatchMemo memo = newMismatchMemo(group);
+		ProfilerParseRunner<Node> runner = new ProfilerParseRunner<Node>(group.structures.compilationUnitEoi(), preprocessed, memo);
+		try {
+			this.parsingResult = runner.run();
+		} finally {
+			group.release();
+		}
 		StringBuilder out = new StringBuilder();
 		out.append(runner.getOverviewReport());
+		if (memo != null) out.append(memoReport(memo));
 		postProcess();
 		return out.toString();
 	}
 	
 	public List<String> getDetailedProfileInformation(int top) {
 		clear();
+		entryPoint = EntryPoint.COMPILATION_UNIT;
 		preProcess();
-		ParserGroup group = new ParserGroup(this);
-		ProfilerParseRunner<Node> runner = new ProfilerParseRunner<Node>(group.structures.compilationUnitEoi(), preprocessed);
-		this.parsingResult = runner.run();
+		ParserGroup group = ParserGroup.obtain(this);
+		MismatchMemo memo = newMismatchMemo(group);
+		ProfilerParseRunner<Node> runner = new ProfilerParseRunner<Node>(group.structures.compilationUnitEoi(), preprocessed, memo);
+		try {
+			this.parsingResult = runner.run();
+		} finally {
+			group.release();
+		}
 		List<String> result = Lists.newArrayList();
-		result.add(runner.getOverviewReport());
+		result.add(runner.getOverviewReport() + (memo == null ? "" : memoReport(memo)));
 		result.addAll(runner.getExtendedReport(top));
 		postProcess();
 		return result;
 	}
 	
-	private List<Integer> calculateLineEndings() {
-		ImmutableList.Builder<Integer> builder = ImmutableList.builder();
-		
-		boolean atCR = false;
-		for (int i = 0; i < rawInput.length(); i++) {
-			char c = rawInput.charAt(i);
-			if (c == '\n' && !atCR) builder.add(i);
-			atCR = c == '\r';
-			if (atCR) builder.add(i);
+	/**
+	 * Parses this source as a compilation unit, counting per rule how often it ran and matched, how much input it consumed and backtracked
+	 * over, and how long it took. Profiles of many files can be merged with {@link RuleProfile#merge(RuleProfile)}.
+	 */
+	public RuleProfile getRuleProfile() {
+		clear();
+		entryPoint = EntryPoint.COMPILATION_UNIT;
+		preProcess();
+		ParserGroup group = ParserGroup.obtain(this);
+		RuleProfilingParseRunner<Node> runner = new RuleProfilingParseRunner<Node>(group.structures.compilationUnitEoi(), preprocessed, newMismatchMemo(group));
+		try {
+			this.parsingResult = runner.run();
+		} finally {
+			group.release();
 		}
-		return builder.build();
+		postProcess();
+		return runner.getProfile();
+	}
+	
+	/**
+	 * Parses this source as a compilation unit using the provided options. Does nothing if this source has already been parsed;
+	 * call {@link #clear()} first to parse again with different options.
+	 */
+	public void parseCompilationUnit(ParseOptions options) {
+		if (parsed) return;
+		this.options = options;
+		parseCompilationUnit();
 	}
 	
 	public void parseCompilationUnit() {
 		if (parsed) return;
+		entryPoint = EntryPoint.COMPILATION_UNIT;
 		preProcess();
-		ParserGroup group = new ParserGroup(this);
-		parsingResult = RecoveringParseRunner.run(group.structures.compilationUnitEoi(), preprocessed);
+		ParserGroup group = ParserGroup.obtain(this);
+		try {
+			parsingResult = run(group, group.structures.compilationUnitEoi(), preprocessed);
+		} finally {
+			group.release();
+		}
 		postProcess();
 	}
 	
+	/**
+	 * Like {@link #parseCompilationUnit(ParseOptions)}, but parses this source as a type member.
+	 */
+	public void parseMember(ParseOptions options) {
+		if (parsed) return;
+		this.options = options;
+		parseMember();
+	}
+	
 	public void parseMember() {
 		if (parsed) return;
+		entryPoint = EntryPoint.MEMBER;
 		preProcess();
-		ParserGroup group = new ParserGroup(this);
-		parsingResult = RecoveringParseRunner.run(group.structures.typeBodyMember(), preprocessed);
+		ParserGroup group = ParserGroup.obtain(this);
+		try {
+			parsingResult = run(group, group.structures.typeBodyMember(), preprocessed);
+		} finally {
+			group.release();
+		}
 		postProcess();
 	}
 	
+	/**
+	 * Like {@link #parseCompilationUnit(ParseOptions)}, but parses this source as a statement.
+	 */
+	public void parseStatement(ParseOptions options) {
+		if (parsed) return;
+		this.options = options;
+		parseStatement();
+	}
+	
 	public void parseStatement() {
 		if (parsed) return;
+		entryPoint = EntryPoint.STATEMENT;
 		preProcess();
-		ParserGroup group = new ParserGroup(this);
-		parsingResult = RecoveringParseRunner.run(group.statements.anyStatement(), preprocessed);
+		ParserGroup group = ParserGroup.obtain(this);
+		try {
+			parsingResult = run(group, group.statements.anyStatement(), preprocessed);
+		} finally {
+			group.release();
+		}
 		postProcess();
 	}
 	
+	/**
+	 * Like {@link #parseCompilationUnit(ParseOptions)}, but parses this source as a expression.
+	 */
+	public void parseExpression(ParseOptions options) {
+		if (parsed) return;
+		this.options = options;
+		parseExpression();
+	}
+	
 	public void parseExpression() {
 		if (parsed) return;
+		entryPoint = EntryPoint.EXPRESSION;
 		preProcess();
-		ParserGroup group = new ParserGroup(this);
-		parsingResult = RecoveringParseRunner.run(group.expressions.anyExpression(), preprocessed);
+		ParserGroup group = ParserGroup.obtain(this);
+		try {
+			parsingResult = run(group, group.expressions.anyExpression(), preprocessed);
+		} finally {
+			group.release();
+		}
 		postProcess();
 	}
+	
+	/**
+	 * Like {@link #parseCompilationUnit(ParseOptions)}, but parses this source as a variable definition.
+	 */
+	public void parseVariableDefinition(ParseOptions options) {
+		if (parsed) return;
+		this.options = options;
+		parseVariableDefinition();
+	}
+	
 	public void parseVariableDefinition() {
 		if (parsed) return;
+		entryPoint = EntryPoint.VARIABLE_DEFINITION;
 		preProcess();
-		ParserGroup group = new ParserGroup(this);
-		parsingResult = RecoveringParseRunner.run(group.structures.variableDefinition(), preprocessed);
+		ParserGroup group = ParserGroup.obtain(this);
+		try {
+			parsingResult = run(group, group.structures.variableDefinition(), preprocessed);
+		} finally {
+			group.release();
+		}
 		postProcess();
 	}
 	
-	private void postProcess() {
-		for (ParseError error : parsingResult.parseErrors) {
-			int errStart = error.getStartIndex();
-			int errEnd = error.getEndIndex();
-			problems.add(new ParseProblem(new Position(mapPosition(errStart), mapPosition(errEnd)), error.toString()));
+	private static String memoReport(MismatchMemo memo) {
+		return String.format("Memoized mismatches: %d recorded, %d rule runs skipped\n", memo.getRecorded(), memo.getHits());
+	}
+	
+	/**
+	 * Returns a fresh memo for a parse run with {@code group} if the options ask for mismatches to be memoized, and {@code null} otherwise.
+	 */
+	private MismatchMemo newMismatchMemo(ParserGroup group) {
+		return options.isMemoizeMismatches() ? new MismatchMemo(group.expressions.mismatchMemoizingRules()) : null;
+	}
+	
+	/**
+	 * Parses {@code input} with {@code rule}. If the options ask for it, the mismatches of memoizing rules are remembered for the duration of the run.
+	 * 
+	 * Error recovery inserts and deletes characters as it goes, which would throw off remembered positions, so a memoizing run doesn't recover:
+	 * input that doesn't parse is parsed again from scratch without memoization, this time recovering from errors. In {@link ParseOptions#isFailFast() fail fast}
+	 * mode it isn't parsed again at all; see {@link #problemsOf(ParsingResult, int)}.
+	 * 
+	 * @return The result, or {@code null} if the run was cancelled or ran out of its {@link ParseBudget}.
+	 */
+	private ParsingResult<Node> run(ParserGroup group, Rule rule, String input) {
+		failedFast = null;
+		failedFastInput = null;
+		aborted = null;
+		ParseBudget outerBudget = budget;
+		try {
+			budget = ParseBudget.of(options);
+			return runWithinBudget(group, rule, input);
+		} catch (RuntimeException e) {
+			aborted = ParseBudget.Exceeded.find(e);
+			if (aborted == null) throw e;
+			return null;
+		} finally {
+			budget = outerBudget;
+		}
+	}
+	
+	private ParsingResult<Node> runWithinBudget(ParserGroup group, Rule rule, String input) {
+		MismatchMemo memo = newMismatchMemo(group);
+		if (options.isFailFast() || budget != null || memo != null) {
+			FailFastParseRunner<Node> runner = new FailFastParseRunner<Node>(rule, input, budget, memo);
+			ParsingResult<Node> result = runner.run();
+			if (result.matched) return result;
+			if (options.isFailFast()) {
+				failedFast = result;
+				failedFastIndex = Math.max(0, runner.getErrorIndex());
+				failedFastInput = input;
+				return result;
+			}
+		}
+		return RecoveringParseRunner.run(rule, input);
+	}
+	
+	/**
+	 * Turns the errors in {@code result}, which came from parsing the {@code preprocessed} string from {@code offset} on, into problems.
+	 * A result that failed in fail fast mode has no errors of its own, just the position where the parse got stuck, and an aborted run
+	 * has no result at all.
+	 */
+	private List<ParseProblem> problemsOf(ParsingResult<Node> result, int offset) {
+		List<ParseProblem> out = Lists.newArrayList();
+		if (result == null) {
+			int index = aborted == null ? 0 : aborted.getIndex();
+			Position position = new Position(mapPosition(index + offset), mapPosition(index + offset));
+			out.add(new AbortedParseProblem(position, aborted == null ? AbortedParseProblem.Reason.CANCELLED : aborted.getReason()));
+			aborted = null;
+			return out;
 		}
 		
-		if (parsingResult.parseTreeRoot != null) {
+		if (result == failedFast) {
+			int index = failedFastIndex;
+			boolean atEnd = index >= failedFastInput.length();
+			String message = atEnd ? "Unexpected end of input" : "Invalid input '" + failedFastInput.charAt(index) + "'";
+			int end = atEnd ? index : index + 1;
+			out.add(new ParseProblem(new Position(mapPosition(index + offset), mapPosition(end + offset)), message));
+			failedFast = null;
+			failedFastInput = null;
+			return out;
+		}
+		
+		for (ParseError error : result.parseErrors) {
+			int errStart = error.getStartIndex() + offset;
+			int errEnd = error.getEndIndex() + offset;
+			out.add(new ParseProblem(new Position(mapPosition(errStart), mapPosition(errEnd)), error.toString()));
+		}
+		return out;
+	}
+	
+	/**
+	 * Charges a run of the whitespace matcher to the running parse's budget, unless the runner already counts every matcher.
+	 */
+	void budgetStep(int index) {
+		if (budget != null) budget.stepUnlessCounted(index);
+	}
+	
+	/**
+	 * Returns the shared instance of the identifier text {@code text}, from the options' {@link SymbolTable} if there is one, otherwise from this source's own.
+	 */
+	String internSymbol(String text) {
+		if (symbols == null) symbols = options.getSymbolTable() != null ? options.getSymbolTable() : new SymbolTable();
+		return symbols.intern(text);
+	}
+	
+	private void postProcess() {
+		problems.addAll(problemsOf(parsingResult, 0));
+		
+		if (parsingResult != null && parsingResult.parseTreeRoot != null) {
 			nodes.add(parsingResult.parseTreeRoot.getValue());
-			gatherComments(parsingResult.parseTreeRoot);
+			gatherComments(parsingResult.parseTreeRoot, comments, 0);
 		}
 		
 		comments = Collections.unmodifiableList(comments);
 		nodes = Collections.unmodifiableList(nodes);
 		problems = Collections.unmodifiableList(problems);
 		
-		rtrimPositions(nodes, comments);
-		
 		//TODO Write test case with javadoc intermixed with empty declares.
 		//TODO test javadoc on a package declaration.
 		//TODO javadoc in between keywords.
 		
-		associateJavadoc(comments, nodes);
-		
-		fixPositions(nodes);
-		fixPositions(comments);
+		finishPositions(nodes, comments, 0, preprocessed.length());
 		
 		parsed = true;
+		if (options.isLean()) dropParseState();
+	}
+	
+	/**
+	 * Installs nodes, comments and problems that were produced by an earlier parse of the same raw input, instead of parsing it again.
+	 * Preprocessing still runs so positions can be mapped. There is no parse tree, so asking for source structures parses the input again
+	 * on the side; see {@link #getSourceStructures()}.
+	 */
+	void restore(List<Node> restoredNodes, List<Comment> restoredComments, List<ParseProblem> restoredProblems) {
+		clear();
+		preProcess();
+		nodes = Collections.unmodifiableList(Lists.newArrayList(restoredNodes));
+		comments = Collections.unmodifiableList(Lists.newArrayList(restoredComments));
+		problems = Collections.unmodifiableList(Lists.newArrayList(restoredProblems));
+		parsed = true;
+	}
+	
+	ParseOptions getOptions() {
+		return options;
+	}
+	
+	/**
+	 * Sets the options the next parse uses, without parsing.
+	 */
+	void setOptions(ParseOptions options) {
+		this.options = options;
+	}
+	
+	boolean isParsed() {
+		return parsed;
+	}
+	
+	List<Comment> getComments() {
+		return comments;
+	}
+	
+	/**
+	 * Returns the parboiled result of the last parse, or {@code null} if it has been let go of (see {@link ParseOptions#lean(boolean)}).
+	 */
+	ParsingResult<Node> getParsingResult() {
+		return parsingResult;
+	}
+	
+	/**
+	 * Lets go of everything only needed to build source structures: the parboiled parse tree and the maps keyed on its nodes.
+	 */
+	private void dropParseState() {
+		parsingResult = null;
+		registeredStructures = null;
+		registeredComments = null;
+		tokens = null;
+		symbols = null;
 	}
 	
 	void registerStructure(Node node, org.parboiled.Node<Node> pNode) {
+		if (options.isLean()) return;
+		if (registeredStructures == null) registeredStructures = new MapMaker().weakKeys().makeMap();
 		registeredStructures.put(pNode, node);
 	}
 	
+	/**
+	 * If the nodes of this source weren't all built by a parse whose parse tree is still around, because they were restored from a {@link ParseCache}
+	 * or an edit was applied to them, the raw input is parsed again on the side and the structures are paired up with the nodes of this source.
+	 * The nodes themselves are never replaced.
+	 * 
+	 * @throws IllegalStateException If this source is parsed with {@link ParseOptions#lean(boolean) lean} options, which don't keep what's needed to build them.
+	 */
 	public Map<Node, Collection<SourceStructure>> getSourceStructures() {
 		if (cachedSourceStructures != null) return cachedSourceStructures;
+		if (options.isLean()) throw new IllegalStateException("Source structures aren't available for sources parsed in lean mode.");
+		if (parsed && parsingResult == null) return cachedSourceStructures = structuresOfFreshParse();
 		parseCompilationUnit();
+		if (parsingResult == null) return Collections.emptyMap();
 		ListMultimap<Node, SourceStructure> map = LinkedListMultimap.create();
 		
 		org.parboiled.Node<Node> pNode = parsingResult.parseTreeRoot;
 		
-		buildSourceStructures(pNode, null, map);
+		buildSourceStructures(pNode, null, map, 0);
 		
 		Map<Node, Collection<SourceStructure>> result = map.asMap();
 		
@@ -227,6 +505,63 @@ public class Source {
 		return cachedSourceStructures = result;
 	}
 	
+	private Map<Node, Collection<SourceStructure>> structuresOfFreshParse() {
+		Source fresh = new Source(rawInput, name);
+		fresh.entryPoint = entryPoint;
+		fresh.reparse();
+		Map<Node, Collection<SourceStructure>> freshStructures = fresh.getSourceStructures();
+		List<Node> freshNodes = fresh.getNodes();
+		Map<Node, Collection<SourceStructure>> result = Maps.newLinkedHashMap();
+		if (freshNodes.size() == nodes.size()) {
+			for (int i = 0; i < nodes.size(); i++) pairStructures(nodes.get(i), freshNodes.get(i), freshStructures, result);
+		}
+		return result;
+	}
+	
+	/**
+	 * Walks {@code node} and {@code fresh}, which is the same node out of another parse of the same input, side by side, and hands the
+	 * structures of each fresh node to its counterpart. Bodies that haven't been parsed yet are not walked into.
+	 */
+	private static void pairStructures(Node node, Node fresh, Map<Node, Collection<SourceStructure>> freshStructures, Map<Node, Collection<SourceStructure>> out) {
+		if (node.getClass() != fresh.getClass() && !(node instanceof LazyBlock && fresh instanceof Block)) return;
+		Collection<SourceStructure> structures = freshStructures.get(fresh);
+		if (structures != null) out.put(node, structures);
+		if (isUnparsedBody(node)) return;
+		int count = node.childCount();
+		if (count != fresh.childCount()) return;
+		for (int i = 0; i < count; i++) pairStructures(node.childAt(i), fresh.childAt(i), freshStructures, out);
+	}
+	
+	/**
+	 * Brings {@code structures} up to date with an edit that replaced {@code target}, which spanned {@code start} to {@code oldEnd}, with the node parsed
+	 * into {@code pRoot}: the structures of {@code target} and its children make way for those of the replacement, and the rest are moved along.
+	 */
+	private Map<Node, Collection<SourceStructure>> spliceStructures(Map<Node, Collection<SourceStructure>> structures, Node target,
+			org.parboiled.Node<Node> pRoot, int start, int oldEnd, int delta) {
+		
+		ListMultimap<Node, SourceStructure> map = LinkedListMultimap.create();
+		for (Map.Entry<Node, Collection<SourceStructure>> entry : structures.entrySet()) {
+			if (isWithin(entry.getKey(), target)) continue;
+			for (SourceStructure structure : entry.getValue()) {
+				Position p = structure.getPosition();
+				if (p.getStart() >= start && p.getEnd() <= oldEnd) continue;
+				Position shifted = shift(p, oldEnd, delta);
+				if (shifted == p) map.put(entry.getKey(), structure);
+				else if (p.getStart() < start) map.put(entry.getKey(), new SourceStructure(shifted, rawInput.substring(shifted.getStart(), shifted.getEnd())));
+				else map.put(entry.getKey(), new SourceStructure(shifted, structure.getContent()));
+			}
+		}
+		buildSourceStructures(pRoot, null, map, start);
+		return map.asMap();
+	}
+	
+	private static boolean isWithin(Node node, Node ancestor) {
+		for (Node n = node; n != null; n = n.getParent()) {
+			if (n == ancestor) return true;
+		}
+		return false;
+	}
+	
 	private void addSourceStructure(ListMultimap<Node, SourceStructure> map, Node node, SourceStructure structure) {
 		if (structure.getPosition().size() > 0 && structure.getContent().trim().length() > 0 &&
 				!structure.getPosition().equals(node.getPosition())) {
@@ -235,11 +570,14 @@ public class Source {
 		}
 	}
 	
-	private void buildSourceStructures(org.parboiled.Node<Node> pNode, Node owner, ListMultimap<Node, SourceStructure> map) {
-		Node target = registeredStructures.remove(pNode);
+	/**
+	 * @param offset Where the parsed text starts in the {@code preprocessed} string.
+	 */
+	private void buildSourceStructures(org.parboiled.Node<Node> pNode, Node owner, ListMultimap<Node, SourceStructure> map, int offset) {
+		Node target = registeredStructures == null ? null : registeredStructures.remove(pNode);
 		if (target != null || pNode.getChildren().isEmpty()) {
-			int start = pNode.getStartIndex();
-			int end = pNode.getEndIndex();
+			int start = pNode.getStartIndex() + offset;
+			int end = pNode.getEndIndex() + offset;
 			String text = preprocessed.substring(start, end);
 			SourceStructure structure = new SourceStructure(new Position(start, end), text);
 			if (target != null) addSourceStructure(map, target, structure);
@@ -257,118 +595,144 @@ public class Source {
 			if (possibleOwner != null) owner = possibleOwner;
 			
 			for (org.parboiled.Node<Node> child : pNode.getChildren()) {
-				buildSourceStructures(child, owner, map);
+				buildSourceStructures(child, owner, map, offset);
 			}
 		}
 	}
 	
 	/**
-	 * The end positions of all nodes include their trailing whitespace which isn't very convenient.
-	 * We'll 'fix' the end marker of each node by trimming it back. This is somewhat complicated as comments also need to be trimmed across.
-	 * We also adjust all positions to conform with the raw input (undoing any positional shifts caused by preprocessing).
+	 * Finishes the positions of a freshly parsed tree in a single pass that allocates at most one {@code Position} per node:
+	 * <ul>
+	 * <li>The end positions of all nodes include their trailing whitespace which isn't very convenient. We'll 'fix' the end marker of each node
+	 * by trimming it back. This is somewhat complicated as comments also need to be trimmed across.</li>
+	 * <li>Javadoc comments are associated with the node they belong to, by checking if the node that immediately follows a javadoc comment is a
+	 * {@code JavadocContainer}.</li>
+	 * <li>All positions are adjusted to conform with the raw input (undoing any positional shifts caused by preprocessing).</li>
+	 * </ul>
+	 * Only the {@code from} to {@code to} range of the {@code preprocessed} string is considered when trimming.
 	 */
-	private void rtrimPositions(List<Node> nodes, List<Comment> comments) {
-		final boolean[] whitespace = new boolean[preprocessed.length()];
+	private void finishPositions(List<Node> nodes, List<Comment> comments, final int from, final int to) {
+		final long[] whitespace = new long[((to - from) >> 6) + 1];
 		for (Comment comment : comments) {
-			Position p = comment.getPosition();
-			if (!p.isUnplaced()) {
-				for (int i = p.getStart(); i < p.getEnd(); i++) whitespace[i] = true;
+			if (isPlaced(comment)) {
+				for (int i = Math.max(from, comment.getStart()); i < Math.min(to, comment.getEnd()); i++) whitespace[(i - from) >> 6] |= 1L << (i - from);
 			}
 		}
 		
 		/* Process actual whitespace in preprocessed source data */ {
-			char[] chars = preprocessed.toCharArray();
-			for (int i = 0; i < chars.length; i++) if (Character.isWhitespace(chars[i])) whitespace[i] = true;
+			for (int i = from; i < to; i++) {
+				if (Character.isWhitespace(preprocessed.charAt(i))) whitespace[(i - from) >> 6] |= 1L << (i - from);
+			}
 		}
 		
+		/* Javadoc candidates: per javadoc (sorted on end position), the earliest node that starts before the next javadoc ends. */
+		final List<Comment> javadocs = Lists.newArrayList();
+		for (Comment comment : comments) if (comment.isJavadoc() && isPlaced(comment)) javadocs.add(comment);
+		Collections.sort(javadocs, new Comparator<Comment>() {
+			@Override public int compare(Comment a, Comment b) {
+				return a.getEnd() - b.getEnd();
+			}
+		});
+		final int[] javadocEnds = new int[javadocs.size()];
+		for (int i = 0; i < javadocEnds.length; i++) javadocEnds[i] = javadocs.get(i).getEnd();
+		final int[] candidateStarts = new int[javadocEnds.length];
+		final Node[] candidates = new Node[javadocEnds.length];
+		Arrays.fill(candidateStarts, Integer.MAX_VALUE);
+		
 		for (Node node : nodes) node.accept(new ForwardingAstVisitor() {
+			/* The trimmed but not yet mapped positions of the nodes we're in. */
+			private int[] starts = new int[32], ends = new int[32];
+			private int depth = 0;
+			
 			@Override public boolean visitNode(Node node) {
-				Position p = node.getPosition();
-				if (p.isUnplaced()) return false;
-				
-				int trimmed = Math.min(whitespace.length, p.getEnd());
-				while (trimmed > 0 && whitespace[trimmed-1]) trimmed--;
-				
-				int start, end;
+				int start = node.getStart(), end = node.getEnd();
 				
-				if (p.getEnd() - p.getStart() == 0) {
-					if (node.getParent() != null) {
-						start = Math.min(node.getParent().getPosition().getEnd(), Math.max(node.getParent().getPosition().getStart(), p.getStart()));
+				if (isPlaced(node)) {
+					if (end - start == 0) {
+						if (depth > 0) start = Math.min(ends[depth - 1], Math.max(starts[depth - 1], start));
 						end = start;
 					} else {
-						start = p.getStart();
-						end = start;
+						int trimmed = Math.min(to, end);
+						while (trimmed > from && (whitespace[(trimmed - 1 - from) >> 6] & 1L << (trimmed - 1 - from)) != 0) trimmed--;
+						end = Math.max(trimmed, start);
 					}
-				} else {
-					start = p.getStart();
-					end = Math.max(trimmed, start);
+					
+					if (javadocEnds.length > 0 && !node.isGenerated()) {
+						int idx = Arrays.binarySearch(javadocEnds, start);
+						if (idx < 0) idx = -idx - 2;
+						else while (idx + 1 < javadocEnds.length && javadocEnds[idx + 1] == start) idx++;
+						/* Among nodes starting at the same spot, the first javadoc container wins, otherwise the last one visited. */
+						if (idx >= 0 && (start < candidateStarts[idx] || (start == candidateStarts[idx] && !(candidates[idx] instanceof JavadocContainer)))) {
+							candidateStarts[idx] = start;
+							candidates[idx] = node;
+						}
+					}
+					
+					int mappedStart = mapPosition(start), mappedEnd = mapPosition(end);
+					node.setRange(mappedStart, mappedEnd);
 				}
 				
-				node.setPosition(new Position(start, end));
-				
-				return false;
-			}
-		});
-	}
-	
-	private void fixPositions(List<? extends Node> nodes) {
-		for (Node node : nodes) node.accept(new ForwardingAstVisitor() {
-			@Override public boolean visitNode(Node node) {
-				Position p = node.getPosition();
-				if (!p.isUnplaced()) {
-					node.setPosition(new Position(mapPosition(p.getStart()), mapPosition(p.getEnd())));
-				}
 				if (node instanceof Expression) {
 					List<Position> list = ((Expression)node).astParensPositions();
 					if (list != null) {
 						ListIterator<Position> li = list.listIterator();
 						while (li.hasNext()) {
 							Position parenPos = li.next();
-							if (!parenPos.isUnplaced()) {
-								parenPos = new Position(mapPosition(parenPos.getStart()), mapPosition(parenPos.getEnd()));
-								li.set(parenPos);
+							if (!parenPos.isUnplaced() && deltaCount > 0) {
+								li.set(new Position(mapPosition(parenPos.getStart()), mapPosition(parenPos.getEnd())));
 							}
 						}
 					}
 				}
-				return false;
-			}
-		});
-	}
-	
-	/**
-	 * Associates comments that are javadocs to the node they belong to, by checking if the node that immediately follows a javadoc node is a JavadocContainer.
-	 */
-	private void associateJavadoc(List<Comment> comments, List<Node> nodes) {
-		final TreeMap<Integer, Node> startPosMap = Maps.newTreeMap();
-		for (Node node : nodes) node.accept(new ForwardingAstVisitor() {
-			@Override public boolean visitNode(Node node) {
-				if (node.isGenerated()) return false;
-				int startPos = node.getPosition().getStart();
-				Node current = startPosMap.get(startPos);
-				if (current == null || !(current instanceof JavadocContainer)) {
-					startPosMap.put(startPos, node);
-				}
 				
+				if (isUnparsedBody(node)) return true;
+				
+				if (depth == starts.length) {
+					starts = Arrays.copyOf(starts, depth * 2);
+					ends = Arrays.copyOf(ends, depth * 2);
+				}
+				starts[depth] = start;
+				ends[depth] = end;
+				depth++;
 				return false;
 			}
+			
+			@Override public void endVisit(Node node) {
+				depth--;
+			}
 		});
 		
-		for (Comment comment : comments) {
-			if (!comment.isJavadoc()) continue;
-			Map<Integer, Node> tailMap = startPosMap.tailMap(comment.getPosition().getEnd());
-			if (tailMap.isEmpty()) continue;
-			Node assoc = tailMap.values().iterator().next();
-			if (!(assoc instanceof JavadocContainer)) continue;
-			JavadocContainer jc = (JavadocContainer) assoc;
-			if (jc.rawJavadoc() != null) {
-				if (jc.rawJavadoc().getPosition().getEnd() >= comment.getPosition().getEnd()) continue;
+		/* A node that starts after a later javadoc ends is also after this one; the earliest one wins. */
+		for (int i = candidates.length - 2; i >= 0; i--) {
+			if (candidateStarts[i + 1] < candidateStarts[i]) {
+				candidateStarts[i] = candidateStarts[i + 1];
+				candidates[i] = candidates[i + 1];
 			}
-			jc.rawJavadoc(comment);
 		}
+		
+		for (Comment comment : comments) {
+			if (isPlaced(comment)) comment.setRange(mapPosition(comment.getStart()), mapPosition(comment.getEnd()));
+		}
+		
+		/* Javadocs are in order, so when several precede the same node, the last one sticks. */
+		for (int i = 0; i < candidates.length; i++) {
+			if (candidates[i] instanceof JavadocContainer) ((JavadocContainer) candidates[i]).rawJavadoc(javadocs.get(i));
+		}
+	}
+	
+	static boolean isPlaced(Node node) {
+		return node.getStart() != Position.UNPLACED.getStart() || node.getEnd() != Position.UNPLACED.getEnd();
+	}
+	
+	/**
+	 * Our own passes over the tree must not trigger parsing of skipped bodies; their contents get the same treatment once they are parsed.
+	 */
+	private static boolean isUnparsedBody(Node node) {
+		return node instanceof LazyBlock && !((LazyBlock) node).isParsed();
 	}
 	
 	void registerComment(Context<Node> context, Comment c) {
+		if (registeredComments == null) registeredComments = new MapMaker().weakKeys().makeMap();
 		List<Comment> list = registeredComments.get(context);
 		if (list == null) {
 			list = Lists.newArrayList();
@@ -378,15 +742,22 @@ public class Source {
 	}
 	
 	/**
-	 * Delves through the parboiled node tree to find comments.
+	 * Delves through the parboiled node tree to find comments. Whitespace that was skipped using the token stream didn't log its comments;
+	 * they are created here instead.
+	 * 
+	 * @param offset Where the parsed text starts in the {@code preprocessed} string.
 	 */
-	private boolean gatherComments(org.parboiled.Node<Node> parsed) {
+	private boolean gatherComments(org.parboiled.Node<Node> parsed, List<Comment> comments, int offset) {
+		if (BasicsParser.TOKEN_WS_LABEL.equals(parsed.getLabel())) {
+			return gatherTokenComments(parsed.getStartIndex() + offset, parsed.getEndIndex() + offset, offset, comments);
+		}
+		
 		boolean foundComments = false;
 		for (org.parboiled.Node<Node> child : parsed.getChildren()) {
-			foundComments |= gatherComments(child);
+			foundComments |= gatherComments(child, comments, offset);
 		}
 		
-		List<Comment> cmts = registeredComments.get(parsed);
+		List<Comment> cmts = registeredComments == null ? null : registeredComments.get(parsed);
 		if (cmts != null) for (Comment c : cmts) {
 			comments.add(c);
 			return true;
@@ -395,28 +766,104 @@ public class Source {
 		return foundComments;
 	}
 	
+	private boolean gatherTokenComments(int start, int end, int offset, List<Comment> comments) {
+		TokenStream tokens = getTokens();
+		boolean foundComments = false;
+		for (int i = tokens.firstCommentFrom(start); i < tokens.getCommentCount() && tokens.getCommentStart(i) < end; i++) {
+			int commentStart = tokens.getCommentStart(i);
+			int commentEnd = tokens.getCommentEnd(i);
+			boolean blockComment = preprocessed.charAt(commentStart + 1) == '*';
+			String content = preprocessed.substring(commentStart + 2, blockComment ? commentEnd - 2 : commentEnd);
+			comments.add(BasicsActions.createComment(blockComment, content, commentStart - offset, commentEnd - offset));
+			foundComments = true;
+		}
+		return foundComments;
+	}
+	
+	/**
+	 * Returns the tokens of the {@code preprocessed} string, which are lexed the first time they are needed.
+	 */
+	TokenStream getTokens() {
+		if (tokens == null) tokens = TokenStream.lex(preprocessed);
+		return tokens;
+	}
+	
+	/**
+	 * Returns where the whitespace and comments at {@code index} in the parser's input end, according to the token stream.
+	 * 
+	 * Returns {@code -1} if they should be matched character by character instead: {@code index} isn't in between two tokens, the next token
+	 * starts with a slash or there is none, or the input differs from the {@code preprocessed} string here (error recovery inserts and deletes characters).
+	 */
+	int tokenTriviaEnd(InputBuffer input, int index) {
+		int end = getTokens().triviaEnd(index + parseOffset);
+		if (end == -1 || end == preprocessed.length()) return -1;
+		end -= parseOffset;
+		char next = input.charAt(end);
+		if (next == '/' || next == ' ' || next == '\t' || next == '\f' || next == '\r' || next == '\n') return -1;
+		return matchesInput(input, index, end) ? end : -1;
+	}
+	
+	/**
+	 * Returns where the identifier at {@code index} in the parser's input ends according to the token stream, or {@code -1} if it should be matched
+	 * character by character instead.
+	 */
+	int tokenIdentifierEnd(InputBuffer input, int index) {
+		TokenStream tokens = getTokens();
+		int token = tokens.tokenAt(index + parseOffset);
+		if (token == -1 || tokens.getKind(token) != TokenStream.IDENTIFIER) return -1;
+		int end = tokens.getEnd(token) - parseOffset;
+		if (CharClasses.isIdentifierPart(input.charAt(end))) return -1;
+		return matchesInput(input, index, end) ? end : -1;
+	}
+	
+	private boolean matchesInput(InputBuffer input, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (input.charAt(i) != preprocessed.charAt(i + parseOffset)) return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Escapes are decoded left to right so positions only ever come in ascending order. Each entry stores the sum of all deltas up to and including it.
+	 */
 	private void setPositionDelta(int position, int delta) {
-		Integer i = positionDeltas.get(position);
-		if (i == null) i = 0;
-		positionDeltas.put(position, i + delta);
+		if (deltaCount > 0 && deltaPositions[deltaCount - 1] == position) {
+			deltaSums[deltaCount - 1] += delta;
+			return;
+		}
+		
+		if (deltaCount == deltaPositions.length) {
+			int newLength = Math.max(16, deltaCount * 2);
+			deltaPositions = Arrays.copyOf(deltaPositions, newLength);
+			deltaSums = Arrays.copyOf(deltaSums, newLength);
+		}
+		deltaPositions[deltaCount] = position;
+		deltaSums[deltaCount] = (deltaCount == 0 ? 0 : deltaSums[deltaCount - 1]) + delta;
+		deltaCount++;
+	}
+	
+	/**
+	 * Returns the line map of the raw input. It's built the first time it is asked for and shared until the source changes.
+	 */
+	public LineMap getLineMap() {
+		if (lineMap == null) lineMap = new LineMap(rawInput);
+		return lineMap;
 	}
 	
 	public List<Integer> getLineEndingsTable() {
-		return lineEndings;
+		return getLineMap().getLineEndings();
 	}
 	
+	/**
+	 * Returns the (0-based) line in the upper 32 bits and the column in the lower 32 bits. Columns on the first line are 0-based; on later
+	 * lines they count from the line terminator that precedes them (the {@code \r} of a {@code \r\n}), so the first character of such a
+	 * line is at column 1, or 2 after a {@code \r\n}. Use {@link #getLineMap()} for 0-based columns on every line.
+	 */
 	public long lineColumn(int index) {
-		//Possible efficiency improvement: Store in a list the index into the line table with the first line that's over 500, 1000, 1500, ... chars.
-		//Or just binary search.
-		int oldIdx = 0;
-		int line = 0;
-		
-		for (; line < lineEndings.size(); line++) {
-			int pos = lineEndings.get(line);
-			if (pos > index) break;
-			oldIdx = pos;
-		}
-		return ((long) line << 32 | index - oldIdx);
+		LineMap map = getLineMap();
+		int line = map.endingsUpTo(index);
+		int from = line == 0 ? 0 : map.getLineEnding(line - 1);
+		return ((long) line << 32 | index - from);
 	}
 	
 	/**
@@ -425,21 +872,320 @@ public class Source {
 	 * The difference is caused by decoding backslash-U unicode escapes, for example.
 	 */
 	int mapPosition(int position) {
-		int out = position;
-		for (int delta : positionDeltas.headMap(position, true).values()) {
-			out += delta;
-		}
-		return out;
+		if (deltaCount == 0) return position;
+		int idx = Arrays.binarySearch(deltaPositions, 0, deltaCount, position);
+		if (idx < 0) idx = -idx - 2;
+		return idx < 0 ? position : position + deltaSums[idx];
 	}
 	
 	private String preProcess() {
 		preprocessed = rawInput;
-		this.lineEndings = calculateLineEndings();
+		tokens = null;
 		applyBackslashU();
-//		applyBraceMatching();
+		if (options.isLazyBodies()) applyBraceMatching();
 		return preprocessed;
 	}
 	
+	/**
+	 * Pairs up every opening brace in the preprocessed source with its closing brace, ignoring any braces in comments, string literals and character literals.
+	 * If the braces don't balance out, no table is built at all so that bodies get a full parse and their errors are reported normally.
+	 */
+	private void applyBraceMatching() {
+		int[] openings = new int[16];
+		int[] closings = new int[16];
+		int[] stack = new int[16];
+		int pairs = 0, depth = 0;
+		boolean balanced = true;
+		
+		TokenStream tokens = getTokens();
+		for (int t = 0; t < tokens.getCount(); t++) {
+			if (tokens.getKind(t) != TokenStream.SYMBOL) continue;
+			int i = tokens.getStart(t);
+			switch (preprocessed.charAt(i)) {
+			case '{':
+				if (pairs == openings.length) {
+					openings = Arrays.copyOf(openings, pairs * 2);
+					closings = Arrays.copyOf(closings, pairs * 2);
+				}
+				if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+				openings[pairs] = i;
+				closings[pairs] = -1;
+				stack[depth++] = pairs++;
+				break;
+			case '}':
+				if (depth == 0) balanced = false;
+				else closings[stack[--depth]] = i;
+				break;
+			}
+		}
+		
+		if (!balanced || depth > 0) return;
+		braceOpenings = Arrays.copyOf(openings, pairs);
+		braceClosings = Arrays.copyOf(closings, pairs);
+	}
+	
+	/**
+	 * Returns the position of the brace that closes the opening brace at {@code openingBrace}, or {@code -1} if bodies aren't being skipped right now.
+	 * Both are relative to the text being parsed, which is the {@code preprocessed} string from {@code parseOffset} onwards.
+	 */
+	int matchingBrace(int openingBrace) {
+		if (braceOpenings == null || parsingLazyBody) return -1;
+		int idx = Arrays.binarySearch(braceOpenings, openingBrace + parseOffset);
+		if (idx < 0 || braceClosings[idx] == -1) return -1;
+		return braceClosings[idx] - parseOffset;
+	}
+	
+	/**
+	 * Parses the body that was skipped over at {@code start} to {@code end} in the {@code preprocessed} string, and post-processes it
+	 * as if it had been part of the main parse. Problems found in the body are added to this source's problems list.
+	 * 
+	 * @return The parsed block, or {@code null} if the body could not be parsed as a block.
+	 */
+	Block parseLazyBody(int start, int end) {
+		ParsingResult<Node> result;
+		ParserGroup group = ParserGroup.obtain(this);
+		int outerOffset = parseOffset;
+		parsingLazyBody = true;
+		parseOffset = start;
+		try {
+			result = run(group, group.statements.blockStatement(), preprocessed.substring(start, end));
+		} finally {
+			parsingLazyBody = false;
+			parseOffset = outerOffset;
+			group.release();
+		}
+		
+		List<ParseProblem> newProblems = Lists.newArrayList(problems);
+		newProblems.addAll(problemsOf(result, start));
+		problems = Collections.unmodifiableList(newProblems);
+		
+		if (result == null || result.parseTreeRoot == null || !(result.parseTreeRoot.getValue() instanceof Block)) return null;
+		
+		List<Comment> bodyComments = postProcessFragment(result.parseTreeRoot, start, end);
+		addComments(bodyComments, mapPosition(start));
+		return (Block) result.parseTreeRoot.getValue();
+	}
+	
+	/**
+	 * Gives the node parsed out of {@code start} to {@code end} of the {@code preprocessed} string the same treatment
+	 * {@link #postProcess()} gives the entire tree, with positions moved from the fragment to the whole source.
+	 * 
+	 * @return The comments found in the fragment.
+	 */
+	private List<Comment> postProcessFragment(org.parboiled.Node<Node> pRoot, int start, int end) {
+		List<Node> fragmentNodes = Collections.singletonList(pRoot.getValue());
+		List<Comment> fragmentComments = Lists.newArrayList();
+		gatherComments(pRoot, fragmentComments, start);
+		
+		shiftPositions(fragmentNodes, 0, start, null);
+		shiftPositions(fragmentComments, 0, start, null);
+		finishPositions(fragmentNodes, fragmentComments, start, end);
+		return fragmentComments;
+	}
+	
+	/**
+	 * Inserts comments into the (sorted) comments list in front of the first comment starting at or after {@code rawStart}.
+	 */
+	private void addComments(List<Comment> newComments, int rawStart) {
+		if (newComments.isEmpty()) return;
+		List<Comment> merged = Lists.newArrayList(comments);
+		int at = 0;
+		while (at < merged.size() && merged.get(at).getStart() < rawStart) at++;
+		merged.addAll(at, newComments);
+		comments = Collections.unmodifiableList(merged);
+	}
+	
+	/**
+	 * Moves every start and end position at or beyond {@code from} by {@code delta}, including the spans of bodies that haven't been parsed yet.
+	 * Javadoc comments hanging off of a node are skipped; they are moved along with the comments list.
+	 * 
+	 * @param skip This node and its children are left alone. Can be {@code null}.
+	 */
+	private void shiftPositions(List<? extends Node> nodes, final int from, final int delta, final Node skip) {
+		for (Node node : nodes) node.accept(new ForwardingAstVisitor() {
+			@Override public boolean visitNode(Node node) {
+				if (node == skip) return true;
+				if (node instanceof Comment && node.getParent() != null) return true;
+				shift(node, from, delta);
+				if (node instanceof Expression) {
+					List<Position> list = ((Expression)node).astParensPositions();
+					if (list != null) {
+						ListIterator<Position> li = list.listIterator();
+						while (li.hasNext()) li.set(shift(li.next(), from, delta));
+					}
+				}
+				if (isUnparsedBody(node)) {
+					((LazyBlock) node).shiftBody(from, delta);
+					return true;
+				}
+				return false;
+			}
+		});
+	}
+	
+	private static void shift(Node node, int from, int delta) {
+		if (!isPlaced(node)) return;
+		int start = node.getStart(), end = node.getEnd();
+		node.setRange(start >= from ? start + delta : start, end >= from ? end + delta : end);
+	}
+	
+	private static Position shift(Position p, int from, int delta) {
+		if (p.isUnplaced()) return p;
+		int start = p.getStart() >= from ? p.getStart() + delta : p.getStart();
+		int end = p.getEnd() >= from ? p.getEnd() + delta : p.getEnd();
+		if (start == p.getStart() && end == p.getEnd()) return p;
+		return new Position(start, end);
+	}
+	
+	/**
+	 * Replaces {@code removedLength} characters at {@code offset} in the raw input with {@code inserted}, and brings the parse up to date.
+	 * 
+	 * If this source was parsed as a compilation unit, only the smallest method, constructor, initializer, member or block that fully encloses the edit is
+	 * parsed again, and the nodes and comments around it are kept with their positions shifted. If that isn't possible (the source contains backslash-u
+	 * escapes or parse problems, the edit crosses a member's edges, or the new text no longer parses as the same kind of node), the whole source is parsed again.
+	 * 
+	 * When the whole source is parsed again, it's parsed the same way as before: as a compilation unit, member, statement, expression or variable
+	 * definition. A source that hadn't been parsed yet isn't parsed by this method either.
+	 * 
+	 * Source structures that were already built are kept up to date by an incremental reparse. Otherwise they are worked out the next time they
+	 * are requested, without replacing the nodes; see {@link #getSourceStructures()}.
+	 * 
+	 * @return The node that replaced the reparsed region, or {@code null} if there was no incremental reparse and {@link #getNodes()} should be consulted again.
+	 */
+	public Node applyEdit(int offset, int removedLength, String inserted) {
+		if (offset < 0 || removedLength < 0 || offset + removedLength > rawInput.length()) {
+			throw new IndexOutOfBoundsException(String.format("Edit at %d removing %d characters falls outside of the source (length %d)", offset, removedLength, rawInput.length()));
+		}
+		
+		boolean wasParsed = parsed;
+		boolean wasCompilationUnit = parsed && entryPoint == EntryPoint.COMPILATION_UNIT && !nodes.isEmpty() && nodes.get(0) instanceof CompilationUnit;
+		String oldInput = rawInput;
+		rawInput = oldInput.substring(0, offset) + inserted + oldInput.substring(offset + removedLength);
+		
+		Node replacement = null;
+		if (wasCompilationUnit && deltaCount == 0 && problems.isEmpty() && rawInput.indexOf("\\u") == -1) {
+			replacement = reparseRegion(offset, removedLength, inserted.length() - removedLength);
+		}
+		
+		if (replacement == null) {
+			clear();
+			if (wasParsed) reparse();
+		}
+		
+		return replacement;
+	}
+	
+	private void reparse() {
+		switch (entryPoint) {
+		case MEMBER:
+			parseMember();
+			break;
+		case STATEMENT:
+			parseStatement();
+			break;
+		case EXPRESSION:
+			parseExpression();
+			break;
+		case VARIABLE_DEFINITION:
+			parseVariableDefinition();
+			break;
+		default:
+			parseCompilationUnit();
+		}
+	}
+	
+	/**
+	 * Only called when there are no backslash-u escapes in the source, so positions in {@code preprocessed} and {@code rawInput} are the same.
+	 */
+	private Node reparseRegion(int offset, int removedLength, int delta) {
+		Node target = null;
+		Node current = nodes.get(0);
+		descend: while (!isUnparsedBody(current)) {
+			for (int i = 0, count = current.childCount(); i < count; i++) {
+				Node child = current.childAt(i);
+				if (!isPlaced(child) || child.getStart() >= offset || child.getEnd() <= offset + removedLength) continue;
+				if (isReparseable(child)) target = child;
+				current = child;
+				continue descend;
+			}
+			break;
+		}
+		if (target == null) return null;
+		
+		int start = target.getStart();
+		int oldEnd = target.getEnd();
+		int end = oldEnd + delta;
+		
+		preprocessed = rawInput;
+		tokens = null;
+		braceOpenings = null;
+		braceClosings = null;
+		if (options.isLazyBodies()) applyBraceMatching();
+		
+		ParsingResult<Node> result;
+		ParserGroup group = ParserGroup.obtain(this);
+		parseOffset = start;
+		try {
+			Rule rule;
+			if (target instanceof LazyBlock) rule = group.structures.lazyBody();
+			else if (target instanceof Block) rule = group.statements.blockStatement();
+			else rule = group.structures.typeBodyMember();
+			result = run(group, rule, preprocessed.substring(start, end));
+		} finally {
+			parseOffset = 0;
+			group.release();
+		}
+		
+		if (result == null) {
+			aborted = null;
+			return null;
+		}
+		org.parboiled.Node<Node> pRoot = result.parseTreeRoot;
+		if (!result.parseErrors.isEmpty() || pRoot == null || pRoot.getEndIndex() != end - start ||
+				pRoot.getValue() == null || pRoot.getValue().getClass() != target.getClass()) {
+			return null;
+		}
+		
+		Node replacement = pRoot.getValue();
+		Map<Node, Collection<SourceStructure>> structures = cachedSourceStructures == null ? null :
+				spliceStructures(cachedSourceStructures, target, pRoot, start, oldEnd, delta);
+		List<Comment> regionComments = postProcessFragment(pRoot, start, end);
+		
+		shiftPositions(nodes, oldEnd, delta, target);
+		List<Comment> keptComments = Lists.newArrayList();
+		for (Comment comment : comments) {
+			if (comment.getStart() >= start && comment.getEnd() <= oldEnd) continue;
+			shift(comment, oldEnd, delta);
+			keptComments.add(comment);
+		}
+		comments = Collections.unmodifiableList(keptComments);
+		addComments(regionComments, start);
+		
+		if (target instanceof JavadocContainer) {
+			Node javadoc = ((JavadocContainer) target).rawJavadoc();
+			if (javadoc != null && !(javadoc.getStart() >= start && javadoc.getEnd() <= oldEnd)) {
+				((JavadocContainer) target).rawJavadoc(null);
+				((JavadocContainer) replacement).rawJavadoc(javadoc);
+			}
+		}
+		
+		target.getParent().replaceChild(target, replacement);
+		lineMap = null;
+		cachedSourceStructures = structures;
+		parsingResult = null;
+		return replacement;
+	}
+	
+	/**
+	 * Blocks and the members of class and enum bodies can be parsed on their own and end up exactly like they would in a full parse.
+	 * Switch bodies are parsed with different rules, and enum constants and annotation methods aren't {@code typeBodyMember}s.
+	 */
+	private static boolean isReparseable(Node node) {
+		if (node instanceof Block) return !(node.getParent() instanceof Switch);
+		if (!(node instanceof TypeMember) || node instanceof EnumConstant) return false;
+		return node.getParent() instanceof NormalTypeBody || node.getParent() instanceof EnumTypeBody;
+	}
+	
 	/**
 	 * @see <a href="http://java.sun.com/docs/books/jls/third_edition/html/lexical.html#3.3">JLS section 3.3</a>
 	 */
@@ -499,6 +1245,14 @@ public class Source {
 			}
 		}
 		
-		preprocessed = out.toString();
+		/* Without any escapes the output is the same text; don't keep two copies of it around. */
+		preprocessed = deltaCount == 0 && out.length() == preprocessed.length() ? preprocessed : out.toString();
+	}
+	
+	/**
+	 * The rule a source was last parsed with, so that {@link Source#applyEdit(int, int, String)} can parse it again the same way.
+	 */
+	private enum EntryPoint {
+		COMPILATION_UNIT, MEMBER, STATEMENT, EXPRESSION, VARIABLE_DEFINITION;
 	}
 }
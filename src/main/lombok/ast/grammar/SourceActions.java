@@ -25,21 +25,24 @@ import lombok.ast.DanglingNodes;
 import lombok.ast.Identifier;
 import lombok.ast.Modifiers;
 import lombok.ast.Node;
-import lombok.ast.Position;
 
 import org.parboiled.BaseActions;
 
 class SourceActions extends BaseActions<Node> {
-	protected final Source source;
+	protected Source source;
 	
 	SourceActions(Source source) {
 		this.source = source;
 	}
 	
+	void rebind(Source source) {
+		this.source = source;
+	}
+	
 	Identifier createIdentifierIfNeeded(Node identifier, int pos) {
 		if (identifier instanceof Identifier) return (Identifier)identifier;
 		Identifier i = new Identifier();
-		i.setPosition(new Position(pos, pos));
+		i.setRange(pos, pos);
 		DanglingNodes.addDanglingNode(i, identifier);
 		return i;
 	}
@@ -47,7 +50,7 @@ class SourceActions extends BaseActions<Node> {
 	Modifiers createModifiersIfNeeded(Node modifiers, int pos) {
 		if (modifiers instanceof Modifiers) return (Modifiers)modifiers;
 		Modifiers m = new Modifiers();
-		m.setPosition(new Position(pos, pos));
+		m.setRange(pos, pos);
 		DanglingNodes.addDanglingNode(m, modifiers);
 		return m;
 	}
@@ -55,7 +58,7 @@ class SourceActions extends BaseActions<Node> {
 	<T extends Node> T posify(T node) {
 		int start = startPos();
 		int end = Math.max(start, currentPos());
-		node.setPosition(new Position(start, end));
+		node.setRange(start, end);
 		return node;
 	}
 	
@@ -69,6 +72,6 @@ class SourceActions extends BaseActions<Node> {
 	
 	void positionSpan(Node target, org.parboiled.Node<Node> start, org.parboiled.Node<Node> end) {
 		if (target == null || start == null || end == null) return;
-		target.setPosition(new Position(start.getStartIndex(), end.getEndIndex()));
+		target.setRange(start.getStartIndex(), end.getEndIndex());
 	}
 }
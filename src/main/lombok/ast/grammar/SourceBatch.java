@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+
+/**
+ * Parses a group of source files as compilation units, spreading the work over multiple threads.
+ * 
+ * Parsing is CPU bound and every file is independent, so each file is parsed on its own by whichever worker thread picks it up.
+ * Parser state is never shared between threads; each worker uses its own {@link ParserGroup}.
+ * The parsed {@link Source} objects are returned in the order in which they were added, and each carries its own nodes and {@link ParseProblem}s.
+ */
+public class SourceBatch {
+	private final List<Source> sources = Lists.newArrayList();
+	private ParseCache cache;
+	private ParseOptions options;
+	
+	public SourceBatch add(String rawInput, String name) {
+		sources.add(new Source(rawInput, name));
+		return this;
+	}
+	
+	public SourceBatch add(File file, Charset charset) throws IOException {
+		return add(Files.toString(file, charset), file.getCanonicalPath());
+	}
+	
+	/**
+	 * Makes the workers go through {@code cache}, so that sources it has seen before aren't parsed again. {@code null} turns caching off.
+	 */
+	public SourceBatch cache(ParseCache cache) {
+		this.cache = cache;
+		return this;
+	}
+	
+	/**
+	 * Parses every source that isn't parsed yet with {@code options}. To have all sources share one {@link SymbolTable}, set it on these options.
+	 * {@code null} (the default) leaves each source's own options alone.
+	 */
+	public SourceBatch options(ParseOptions options) {
+		this.options = options;
+		return this;
+	}
+	
+	public List<Source> getSources() {
+		return Collections.unmodifiableList(sources);
+	}
+	
+	/**
+	 * Parses all sources with a thread pool of {@code threads} workers, which is shut down afterwards.
+	 * 
+	 * @param threads The amount of worker threads; {@code 1} parses on a single background thread.
+	 */
+	public List<Source> parse(int threads) throws InterruptedException {
+		if (threads < 1) throw new IllegalArgumentException("threads must be at least 1: " + threads);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			return parse(executor);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Parses all sources on the provided executor. The executor is not shut down.
+	 * 
+	 * @throws RuntimeException Any runtime exception thrown while parsing one of the sources is rethrown as-is.
+	 */
+	public List<Source> parse(ExecutorService executor) throws InterruptedException {
+		List<Future<Source>> futures = Lists.newArrayList();
+		for (final Source source : sources) {
+			futures.add(executor.submit(new Callable<Source>() {
+				@Override public Source call() {
+					if (options != null && !source.isParsed()) source.setOptions(options);
+					if (cache == null) source.parseCompilationUnit();
+					else cache.parseCompilationUnit(source);
+					return source;
+				}
+			}));
+		}
+		
+		List<Source> result = Lists.newArrayList();
+		for (Future<Source> future : futures) {
+			try {
+				result.add(future.get());
+			} catch (ExecutionException e) {
+				for (Future<Source> f : futures) f.cancel(true);
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+				if (cause instanceof Error) throw (Error) cause;
+				throw new IllegalStateException(cause);
+			}
+		}
+		return Collections.unmodifiableList(result);
+	}
+}
@@ -79,7 +79,7 @@ public class StatementsActions extends SourceActions {
 			Collections.reverse(labelNames);
 			for (Node n : labelNames) {
 				if (n != null) {
-					Position pos = current == null ? null : new Position(n.getPosition().getStart(), current.getPosition().getEnd());
+					Position pos = current == null ? null : new Position(n.getStart(), current.getEnd());
 					current = new LabelledStatement().astLabel(createIdentifierIfNeeded(n, currentPos())).rawStatement(current);
 					current.setPosition(pos);
 				}
@@ -152,7 +152,7 @@ public class StatementsActions extends SourceActions {
 		VariableDefinition decl = new VariableDefinition().rawTypeReference(type).rawVariables()
 				.addToEnd(varDefEntry.getValue());
 		positionSpan(decl, modifiers, varDefEntry);
-		decl.astModifiers(createModifiersIfNeeded(modifiers.getValue(), decl.getPosition().getStart()));
+		decl.astModifiers(createModifiersIfNeeded(modifiers.getValue(), decl.getStart()));
 		return posify(new ForEach().rawVariable(decl).rawIterable(iterable).rawStatement(statement));
 	}
 	
@@ -182,10 +182,10 @@ public class StatementsActions extends SourceActions {
 	
 	public Node createCatch(Node modifiers, Node type, Node varName, Node body) {
 		VariableDefinitionEntry varNameEntry = new VariableDefinitionEntry().astName(createIdentifierIfNeeded(varName, currentPos()));
-		if (varName != null) varNameEntry.setPosition(varName.getPosition());
+		if (varName != null) varNameEntry.setRange(varName.getStart(), varName.getEnd());
 		VariableDefinition decl = new VariableDefinition().rawTypeReference(type).rawVariables().addToEnd(
 				varNameEntry);
-		if (type != null && varName != null) decl.setPosition(new Position(type.getPosition().getStart(), varName.getPosition().getEnd()));
+		if (type != null && varName != null) decl.setRange(type.getStart(), varName.getEnd());
 		if (modifiers != null) decl.astModifiers(createModifiersIfNeeded(modifiers, currentPos()));
 		return posify(new Catch().rawExceptionDeclaration(decl).rawBody(body));
 	}
@@ -23,10 +23,9 @@ package lombok.ast.grammar;
 
 import lombok.ast.Node;
 
-import org.parboiled.BaseParser;
 import org.parboiled.Rule;
 
-public class StatementsParser extends BaseParser<Node> {
+public class StatementsParser extends AbstractParser {
 	final ParserGroup group;
 	final StatementsActions actions;
 	
@@ -45,7 +45,6 @@ import lombok.ast.Modifiers;
 import lombok.ast.Node;
 import lombok.ast.NormalTypeBody;
 import lombok.ast.PackageDeclaration;
-import lombok.ast.Position;
 import lombok.ast.StaticInitializer;
 import lombok.ast.TypeBody;
 import lombok.ast.TypeReference;
@@ -59,6 +58,14 @@ public class StructuresActions extends SourceActions {
 		super(source);
 	}
 	
+	public Node createLazyBlock() {
+		return posify(new LazyBlock(source, startPos(), currentPos()));
+	}
+	
+	int matchingBrace(int openingBrace) {
+		return source.matchingBrace(openingBrace);
+	}
+	
 	public Node createMethodArguments(Node head, List<Node> tail) {
 		MethodArguments ma = new MethodArguments();
 		if (head != null) ma.arguments.add(head);
@@ -151,7 +158,7 @@ public class StructuresActions extends SourceActions {
 		if (dimClosed != null) for (org.parboiled.Node<Node> pNode : dimClosed) {
 			source.registerStructure(e, pNode);
 		}
-		if (name != null) e.setPosition(new Position(name.getPosition().getStart(), currentPos()));
+		if (name != null) e.setRange(name.getStart(), currentPos());
 		VariableDefinition decl = new VariableDefinition().rawTypeReference(type);
 		if (modifiers != null) decl.astModifiers(createModifiersIfNeeded(modifiers, currentPos()));
 		if (varargs != null && !varargs.trim().isEmpty()) decl.astVarargs(true);
@@ -334,7 +341,7 @@ public class StructuresActions extends SourceActions {
 	public Node createAnnotationDeclaration(Node modifiers, Node name, List<Node> members, org.parboiled.Node<Node> typeOpen, org.parboiled.Node<Node> typeClose) {
 		Node typeBody = createNormalTypeBody(members);
 		if (typeOpen != null && typeClose != null) {
-			typeBody.setPosition(new Position(typeOpen.getStartIndex(), typeClose.getEndIndex()));
+			typeBody.setRange(typeOpen.getStartIndex(), typeClose.getEndIndex());
 		}
 		AnnotationDeclaration decl = new AnnotationDeclaration().astName(createIdentifierIfNeeded(name, currentPos())).rawBody(typeBody);
 		if (modifiers != null) decl.astModifiers(createModifiersIfNeeded(modifiers, currentPos()));
@@ -23,11 +23,13 @@ package lombok.ast.grammar;
 
 import lombok.ast.Node;
 
-import org.parboiled.BaseParser;
+import org.parboiled.MatcherContext;
 import org.parboiled.Rule;
 import org.parboiled.annotations.SuppressSubnodes;
+import org.parboiled.matchers.CharSetMatcher;
+import org.parboiled.support.Characters;
 
-public class StructuresParser extends BaseParser<Node> {
+public class StructuresParser extends AbstractParser {
 	final ParserGroup group;
 	final StructuresActions actions;
 	
@@ -198,6 +200,7 @@ public class StructuresParser extends BaseParser<Node> {
 						)).label("throwsClause"),
 				FirstOf(
 						Sequence(Ch(';'), group.basics.optWS()),
+						lazyBody(),
 						group.statements.blockStatement()).label("body"),
 				set(actions.createConstructorDeclaration(value("modifiers"), value("typeParameters"), value("typeName"), value("params"), 
 						value("throwsClause/Sequence/throwsHead"), values("throwsClause/Sequence/ZeroOrMore/throwsTail"),
@@ -234,6 +237,7 @@ public class StructuresParser extends BaseParser<Node> {
 						)).label("throwsClause"),
 				FirstOf(
 						Sequence(Ch(';'), group.basics.optWS()),
+						lazyBody(),
 						group.statements.blockStatement()).label("body"),
 				set(actions.createMethodDeclaration(value("modifiers"), value("typeParameters"), value("resultType"), value("methodName"), value("params"), 
 						nodes("dims/dim"), value("throwsClause/Sequence/throwsHead"), values("throwsClause/Sequence/ZeroOrMore/throwsTail"),
@@ -264,17 +268,45 @@ public class StructuresParser extends BaseParser<Node> {
 	
 	public Rule instanceInitializer() {
 		return Sequence(
-				group.statements.blockStatement().label("initializer"),
+				FirstOf(lazyBody(), group.statements.blockStatement()).label("initializer"),
 				set(actions.createInstanceInitializer(value("initializer"))));
 	}
 	
 	public Rule staticInitializer() {
 		return Sequence(
 				String("static"), group.basics.testLexBreak(), group.basics.optWS(),
-				group.statements.blockStatement().label("initializer"),
+				FirstOf(lazyBody(), group.statements.blockStatement()).label("initializer"),
 				set(actions.createStaticInitializer(value("initializer"))));
 	}
 	
+	/**
+	 * Only matches when parsing with {@link ParseOptions#lazyBodies(boolean) lazy bodies}; skips straight to the matching closing brace.
+	 */
+	Rule lazyBody() {
+		return Sequence(
+				new LazyBodyMatcher(actions),
+				set(actions.createLazyBlock()),
+				group.basics.optWS());
+	}
+	
+	private static class LazyBodyMatcher extends CharSetMatcher<Node> {
+		private final StructuresActions actions;
+		
+		public LazyBodyMatcher(StructuresActions actions) {
+			super(Characters.of("{"));
+			this.actions = actions;
+		}
+		
+		@Override public boolean match(MatcherContext<Node> context) {
+			if (context.getCurrentChar() != '{') return false;
+			int closingBrace = actions.matchingBrace(context.getCurrentIndex());
+			if (closingBrace == -1) return false;
+			while (context.getCurrentIndex() <= closingBrace) context.advanceIndex();
+			context.createNode();
+			return true;
+		}
+	}
+	
 	public Rule fieldDeclaration() {
 		return Sequence(
 				fieldDeclarationModifiers().label("modifiers"),
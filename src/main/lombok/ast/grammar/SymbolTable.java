@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Interns the text of the identifiers created while parsing, so that every occurrence of, say, {@code String} or {@code i} in the
+ * resulting ASTs shares a single string instance.
+ * 
+ * By default every {@link Source} has its own table. A table can also be shared by many sources, for example all sources of a
+ * {@link SourceBatch}, via {@link ParseOptions#symbolTable(SymbolTable)}; it is safe to use from multiple threads. A table keeps
+ * everything it has interned alive for as long as it is reachable itself.
+ */
+public final class SymbolTable {
+	private final ConcurrentMap<String, String> symbols = new ConcurrentHashMap<String, String>();
+	
+	/**
+	 * Returns the instance of {@code text} held by this table, adding {@code text} itself if the table doesn't hold one yet.
+	 */
+	public String intern(String text) {
+		if (text == null) return null;
+		String symbol = symbols.get(text);
+		if (symbol != null) return symbol;
+		symbol = symbols.putIfAbsent(text, text);
+		return symbol == null ? text : symbol;
+	}
+	
+	public int size() {
+		return symbols.size();
+	}
+}
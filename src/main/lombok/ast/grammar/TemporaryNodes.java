@@ -27,6 +27,7 @@ import java.util.List;
 import com.google.common.collect.Lists;
 
 import lombok.ast.AstVisitor;
+import lombok.ast.ChildVisitor;
 import lombok.ast.Message;
 import lombok.ast.Node;
 import lombok.ast.Position;
@@ -43,6 +44,17 @@ abstract class TemporaryNode implements Node {
 		return Collections.emptyList();
 	}
 	
+	@Override public int childCount() {
+		return 0;
+	}
+	
+	@Override public Node childAt(int index) {
+		throw new IndexOutOfBoundsException("Index: " + index + ", Size: 0");
+	}
+	
+	@Override public void forEachChild(ChildVisitor visitor) {
+	}
+	
 	@Override public boolean detach(Node child) {
 		return false;
 	}
@@ -123,6 +135,19 @@ abstract class TemporaryNode implements Node {
 		return position;
 	}
 	
+	@Override public Node setRange(int start, int end) {
+		this.position = new Position(start, end);
+		return this;
+	}
+	
+	@Override public int getStart() {
+		return position.getStart();
+	}
+	
+	@Override public int getEnd() {
+		return position.getEnd();
+	}
+	
 	@Override public Node getParent() {
 		return null;
 	}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import java.util.Arrays;
+
+/**
+ * The preprocessed input cut up into tokens ahead of the parse, stored as parallel arrays of kind, start and end. Whitespace isn't stored,
+ * and comments are kept on the side in their own arrays.
+ * 
+ * Comments, whitespace and identifiers are recognized exactly like {@link BasicsParser} recognizes them, so wherever the parser is between
+ * two tokens the gap up to the next token is what {@link BasicsParser#optWS()} would match there. Other tokens only need to be cut up
+ * well enough to find those gaps; an unterminated block comment swallows the rest of the input as a single token.
+ */
+final class TokenStream {
+	static final int IDENTIFIER = 1;
+	static final int NUMBER = 2;
+	static final int CHARACTER = 3;
+	static final int STRING = 4;
+	static final int SYMBOL = 5;
+	static final int UNTERMINATED_COMMENT = 6;
+	
+	private final String text;
+	private final int[] kinds, starts, ends;
+	private final int count;
+	private final int[] commentStarts, commentEnds;
+	private final int commentCount;
+	
+	private TokenStream(String text, int[] kinds, int[] starts, int[] ends, int count, int[] commentStarts, int[] commentEnds, int commentCount) {
+		this.text = text;
+		this.kinds = kinds;
+		this.starts = starts;
+		this.ends = ends;
+		this.count = count;
+		this.commentStarts = commentStarts;
+		this.commentEnds = commentEnds;
+		this.commentCount = commentCount;
+	}
+	
+	static TokenStream lex(String text) {
+		int capacity = Math.max(16, text.length() / 4);
+		int[] kinds = new int[capacity], starts = new int[capacity], ends = new int[capacity];
+		int[] commentStarts = new int[16], commentEnds = new int[16];
+		int count = 0, commentCount = 0;
+		
+		int len = text.length();
+		int i = 0;
+		while (i < len) {
+			char c = text.charAt(i);
+			if (c == ' ' || c == '\t' || c == '\f' || c == '\r' || c == '\n') {
+				i++;
+				continue;
+			}
+			
+			int start = i;
+			int kind;
+			if (c == '/' && i + 1 < len && (text.charAt(i + 1) == '/' || text.charAt(i + 1) == '*')) {
+				int end = text.charAt(i + 1) == '/' ? lineCommentEnd(text, i) : blockCommentEnd(text, i);
+				if (end != -1) {
+					if (commentCount == commentStarts.length) {
+						commentStarts = Arrays.copyOf(commentStarts, commentCount * 2);
+						commentEnds = Arrays.copyOf(commentEnds, commentCount * 2);
+					}
+					commentStarts[commentCount] = start;
+					commentEnds[commentCount++] = end;
+					i = end;
+					continue;
+				}
+				kind = UNTERMINATED_COMMENT;
+				i = len;
+			} else if (CharClasses.isIdentifierStart(c)) {
+				kind = IDENTIFIER;
+				for (i++; i < len && CharClasses.isIdentifierPart(text.charAt(i)); i++);
+			} else if ((c >= '0' && c <= '9') || (c == '.' && i + 1 < len && text.charAt(i + 1) >= '0' && text.charAt(i + 1) <= '9')) {
+				kind = NUMBER;
+				for (i++; i < len && (text.charAt(i) == '.' || CharClasses.isIdentifierPart(text.charAt(i))); i++);
+			} else if (c == '"' || c == '\'') {
+				kind = c == '"' ? STRING : CHARACTER;
+				i = quotedEnd(text, i);
+			} else {
+				kind = SYMBOL;
+				i++;
+			}
+			
+			if (count == kinds.length) {
+				kinds = Arrays.copyOf(kinds, count * 2);
+				starts = Arrays.copyOf(starts, count * 2);
+				ends = Arrays.copyOf(ends, count * 2);
+			}
+			kinds[count] = kind;
+			starts[count] = start;
+			ends[count++] = i;
+		}
+		
+		return new TokenStream(text, kinds, starts, ends, count, commentStarts, commentEnds, commentCount);
+	}
+	
+	/**
+	 * Line comments include the line terminator that ends them, like {@link BasicsParser#comment()}.
+	 */
+	private static int lineCommentEnd(String text, int start) {
+		int len = text.length();
+		for (int i = start + 2; i < len; i++) {
+			char c = text.charAt(i);
+			if (c == '\n') return i + 1;
+			if (c == '\r') return i + 1 < len && text.charAt(i + 1) == '\n' ? i + 2 : i + 1;
+		}
+		return len;
+	}
+	
+	private static int blockCommentEnd(String text, int start) {
+		int end = text.indexOf("*/", start + 2);
+		return end == -1 ? -1 : end + 2;
+	}
+	
+	/**
+	 * Runs to just past the closing quote, skipping over backslash escapes. An unclosed literal ends at the end of the line.
+	 */
+	private static int quotedEnd(String text, int start) {
+		char quote = text.charAt(start);
+		int len = text.length();
+		for (int i = start + 1; i < len; i++) {
+			char c = text.charAt(i);
+			if (c == '\\') i++;
+			else if (c == quote) return i + 1;
+			else if (c == '\n' || c == '\r') return i;
+		}
+		return len;
+	}
+	
+	int getLength() {
+		return text.length();
+	}
+	
+	int getCount() {
+		return count;
+	}
+	
+	int getKind(int token) {
+		return kinds[token];
+	}
+	
+	int getStart(int token) {
+		return starts[token];
+	}
+	
+	int getEnd(int token) {
+		return ends[token];
+	}
+	
+	int getCommentCount() {
+		return commentCount;
+	}
+	
+	int getCommentStart(int comment) {
+		return commentStarts[comment];
+	}
+	
+	int getCommentEnd(int comment) {
+		return commentEnds[comment];
+	}
+	
+	/**
+	 * Returns the first comment that starts at or after {@code index}, or {@link #getCommentCount()} if there is none.
+	 */
+	int firstCommentFrom(int index) {
+		int idx = Arrays.binarySearch(commentStarts, 0, commentCount, index);
+		return idx < 0 ? -idx - 1 : idx;
+	}
+	
+	/**
+	 * Returns the token that starts at {@code index}, or {@code -1} if no token starts there.
+	 */
+	int tokenAt(int index) {
+		int idx = Arrays.binarySearch(starts, 0, count, index);
+		return idx < 0 ? -1 : idx;
+	}
+	
+	/**
+	 * Returns where the whitespace and comments starting at {@code index} end, which is the start of the next token or the end of the input.
+	 * If {@code index} is in the middle of a token or a comment, this returns {@code -1}.
+	 */
+	int triviaEnd(int index) {
+		int next = Arrays.binarySearch(starts, 0, count, index);
+		if (next >= 0) return index;
+		next = -next - 1;
+		if (next > 0 && ends[next - 1] > index) return -1;
+		
+		int comment = Arrays.binarySearch(commentStarts, 0, commentCount, index);
+		if (comment < 0) {
+			comment = -comment - 2;
+			if (comment >= 0 && commentEnds[comment] > index) return -1;
+		}
+		
+		return next < count ? starts[next] : text.length();
+	}
+}
@@ -26,7 +26,6 @@ import java.util.List;
 import lombok.ast.DanglingNodes;
 import lombok.ast.Identifier;
 import lombok.ast.Node;
-import lombok.ast.Position;
 import lombok.ast.TypeReference;
 import lombok.ast.TypeReferencePart;
 import lombok.ast.TypeVariable;
@@ -38,7 +37,7 @@ public class TypesActions extends SourceActions {
 	}
 	
 	public Node createPrimitiveType(String text) {
-		Identifier identifier = posify(new Identifier().astValue(text));
+		Identifier identifier = posify(new Identifier().astValue(source.internSymbol(text)));
 		TypeReferencePart typeReferencePart = posify(new TypeReferencePart()
 				.astIdentifier(identifier));
 		return posify(new TypeReference().rawParts().addToStart(typeReferencePart));
@@ -54,7 +53,7 @@ public class TypesActions extends SourceActions {
 		}
 		
 		posify(result); //We only care about the end position here.
-		return result.setPosition(new Position(identifier.getStartIndex(), result.getPosition().getEnd()));
+		return result.setRange(identifier.getStartIndex(), result.getEnd());
 	}
 	
 	public Node createWildcardedType(org.parboiled.Node<Node> qmark, org.parboiled.Node<Node> boundType, String extendsOrSuper, Node type) {
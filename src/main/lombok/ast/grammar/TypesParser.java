@@ -23,11 +23,10 @@ package lombok.ast.grammar;
 
 import lombok.ast.Node;
 
-import org.parboiled.BaseParser;
 import org.parboiled.Rule;
 import org.parboiled.annotations.SuppressSubnodes;
 
-public class TypesParser extends BaseParser<Node> {
+public class TypesParser extends AbstractParser {
 	final ParserGroup group;
 	final TypesActions actions;
 	
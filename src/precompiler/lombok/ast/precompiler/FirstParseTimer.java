@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.precompiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+
+import lombok.ast.grammar.Source;
+
+import com.google.common.io.Files;
+
+/**
+ * Measures the time it takes a fresh JVM to produce its first AST, which is what a short-lived process pays for parser setup.
+ * Run it once with {@code -Dlombok.ast.precompiledParsers=false} and once without to compare generating the parser classes at runtime
+ * against loading the precompiled ones.
+ */
+public class FirstParseTimer {
+	public static void main(String[] args) throws IOException {
+		if (args.length != 1) {
+			System.err.println("Usage: java " + FirstParseTimer.class.getName() + " <java source file>");
+			System.exit(1);
+			return;
+		}
+		
+		File file = new File(args[0]);
+		Source source = new Source(Files.toString(file, Charset.forName("UTF-8")), file.getName());
+		long start = System.nanoTime();
+		source.parseCompilationUnit();
+		int nodes = source.getNodes().size();
+		long firstParse = System.nanoTime() - start;
+		
+		start = System.nanoTime();
+		Source again = new Source(source.getRawInput(), source.getName());
+		again.parseCompilationUnit();
+		long secondParse = System.nanoTime() - start;
+		
+		System.out.printf("precompiled parsers: %s, first AST: %d ms (%d ms since JVM start), second parse: %d ms, nodes: %d, problems: %d\n",
+				!"false".equals(System.getProperty("lombok.ast.precompiledParsers")),
+				firstParse / 1000000, ManagementFactory.getRuntimeMXBean().getUptime(), secondParse / 1000000,
+				nodes, source.getProblems().size());
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.precompiler;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.Instrumentation;
+import java.security.ProtectionDomain;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import lombok.ast.grammar.ParserGroup;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+/**
+ * Build step that writes out the parser classes parboiled generates at runtime, so they can be shipped as plain class files.
+ * 
+ * The first time a {@link ParserGroup} is created in a JVM, parboiled generates a subclass of each grammar class along with helper classes
+ * for its actions, and defines them straight into the class loader; a short-lived process repeats this on every start.
+ * Run as a java agent ({@code -javaagent}) with {@code -Dlombok.ast.precompiledParsers=false}, this tool records the bytecode of every class
+ * in the grammar package that is defined without coming from the class path, creates a parser group to trigger the generation, and writes
+ * the recorded classes to the directory given as its only argument, along with an index of the generated class of each parser class. The
+ * names in the index are taken from the parsers parboiled actually created, and the tool fails if any of those classes wasn't recorded.
+ * The build adds that directory to the distributed jar, where {@code ParserGroup} picks them up.
+ */
+public class ParserPrecompiler {
+	private static final String GRAMMAR_PACKAGE = "lombok/ast/grammar/";
+	/* Where ParserGroup looks for the names of the generated classes. */
+	private static final String INDEX_RESOURCE = GRAMMAR_PACKAGE + "precompiledParsers.properties";
+	private static final Map<String, byte[]> generated = new TreeMap<String, byte[]>();
+	private static boolean agentInstalled;
+	
+	public static void premain(String agentArgs, Instrumentation instrumentation) {
+		agentInstalled = true;
+		instrumentation.addTransformer(new ClassFileTransformer() {
+			@Override public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined,
+					ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+				if (className == null || !className.startsWith(GRAMMAR_PACKAGE) || classBeingRedefined != null) return null;
+				if (!isOnClassPath(loader, className, classfileBuffer)) {
+					synchronized (generated) {
+						generated.put(className, classfileBuffer.clone());
+					}
+				}
+				return null;
+			}
+		});
+	}
+	
+	public static void main(String[] args) throws IOException {
+		if (args.length != 1) {
+			System.err.println("Usage: java -javaagent:<this jar> -Dlombok.ast.precompiledParsers=false " + ParserPrecompiler.class.getName() + " <output directory>");
+			System.exit(1);
+			return;
+		}
+		if (!agentInstalled) {
+			System.err.println("This tool must be run as a java agent as well: -javaagent:<this jar>");
+			System.exit(1);
+			return;
+		}
+		if (!"false".equals(System.getProperty("lombok.ast.precompiledParsers"))) {
+			System.err.println("Run with -Dlombok.ast.precompiledParsers=false, or parboiled will not generate anything when precompiled classes already exist.");
+			System.exit(1);
+			return;
+		}
+		
+		ParserGroup group = new ParserGroup(null);
+		Properties index = new Properties();
+		boolean complete = true;
+		for (Object parser : Arrays.<Object>asList(group.basics, group.literals, group.types, group.expressions, group.statements, group.structures)) {
+			Class<?> extended = parser.getClass();
+			Class<?> parserClass = extended.getSuperclass();
+			if (!isGenerated(extended)) {
+				System.err.printf("The generated class of %s (%s) wasn't recorded.\n", parserClass.getName(), extended.getName());
+				complete = false;
+			}
+			index.setProperty(parserClass.getName(), extended.getName());
+		}
+		if (!complete) {
+			System.exit(1);
+			return;
+		}
+		
+		File outDir = new File(args[0]);
+		int written = 0;
+		synchronized (generated) {
+			for (Map.Entry<String, byte[]> entry : generated.entrySet()) {
+				File target = new File(outDir, entry.getKey() + ".class");
+				target.getParentFile().mkdirs();
+				Files.write(entry.getValue(), target);
+				written++;
+			}
+		}
+		File indexFile = new File(outDir, INDEX_RESOURCE);
+		indexFile.getParentFile().mkdirs();
+		OutputStream out = new FileOutputStream(indexFile);
+		try {
+			index.store(out, "Generated by " + ParserPrecompiler.class.getName());
+		} finally {
+			out.close();
+		}
+		System.out.printf("Wrote %d precompiled parser classes to %s\n", written, outDir);
+	}
+	
+	/**
+	 * Returns {@code true} if {@code type} was defined by parboiled at runtime rather than loaded from the class path, and so was recorded.
+	 */
+	private static boolean isGenerated(Class<?> type) {
+		synchronized (generated) {
+			return generated.containsKey(type.getName().replace('.', '/'));
+		}
+	}
+	
+	/**
+	 * Returns {@code true} if the class is being loaded from the class path. A class file that is on the class path but has different content
+	 * (left over from an earlier run with a different grammar) doesn't count.
+	 */
+	private static boolean isOnClassPath(ClassLoader loader, String className, byte[] bytes) {
+		if (loader == null) return false;
+		InputStream in = loader.getResourceAsStream(className + ".class");
+		if (in == null) return false;
+		try {
+			try {
+				return Arrays.equals(ByteStreams.toByteArray(in), bytes);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			return false;
+		}
+	}
+}
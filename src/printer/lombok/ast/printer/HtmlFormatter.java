@@ -34,6 +34,7 @@ import lombok.Cleanup;
 import lombok.SneakyThrows;
 import lombok.ast.DescribedNode;
 import lombok.ast.Node;
+import lombok.ast.grammar.LineMap;
 
 import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
@@ -44,6 +45,7 @@ import com.google.common.io.ByteStreams;
 public class HtmlFormatter implements SourceFormatter {
 	private final StringBuilder sb = new StringBuilder();
 	private final String rawSource;
+	private LineMap lineMap;
 	private final List<String> errors = Lists.newArrayList();
 	private String nextElementName;
 	
@@ -52,7 +54,16 @@ public class HtmlFormatter implements SourceFormatter {
 	}
 	
 	public HtmlFormatter(String rawSource) {
+		this(rawSource, null);
+	}
+	
+	/**
+	 * @param lineMap The line map of {@code rawSource}, such as {@link lombok.ast.grammar.Source#getLineMap()}; if {@code null}, one is
+	 *     built when the first error is added.
+	 */
+	public HtmlFormatter(String rawSource, LineMap lineMap) {
 		this.rawSource = rawSource;
+		this.lineMap = lineMap;
 	}
 	
 	private static final String OPENERS = "{([<", CLOSERS = "})]>";
@@ -180,7 +191,15 @@ public class HtmlFormatter implements SourceFormatter {
 	}
 	
 	@Override public void addError(int errorStart, int errorEnd, String errorMessage) {
-		errors.add(String.format("<div class=\"parseError\">%s</div>", escapeHtml(errorMessage)));
+		if (rawSource == null || errorStart < 0) {
+			errors.add(String.format("<div class=\"parseError\">%s</div>", escapeHtml(errorMessage)));
+			return;
+		}
+		
+		if (lineMap == null) lineMap = new LineMap(rawSource);
+		int line = lineMap.lineOf(errorStart);
+		errors.add(String.format("<div class=\"parseError\" data-line=\"%d\" data-column=\"%d\">%s</div>",
+				line + 1, errorStart - lineMap.getLineStart(line) + 1, escapeHtml(errorMessage)));
 	}
 	
 	@SneakyThrows(IOException.class)
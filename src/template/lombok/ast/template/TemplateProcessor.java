@@ -560,23 +560,59 @@ public class TemplateProcessor extends AbstractProcessor {
 		}
 		
 		/* children */ {
-			out.write("\t@java.lang.Override public java.util.List<Node> getChildren() {\n");
-			out.write("\t\tjava.util.List<Node> result = new java.util.ArrayList<Node>();\n");
-			for (FieldData data : fields) {
-				if (!data.isAstNode()) continue;
-				if (!data.isList()) {
-					out.write("\t\tif (this.");
-					out.write(data.getName());
-					out.write(" != null) result.add(this.");
-					out.write(data.getName());
-					out.write(");\n");
-				} else {
-					out.write("\t\tresult.addAll(this.");
-					out.write(data.getName());
-					out.write(".backingList());\n");
+			boolean hasChildren = false;
+			for (FieldData data : fields) if (data.isAstNode()) hasChildren = true;
+			
+			/* Nodes without child fields get the empty implementations from AbstractNode. */
+			if (hasChildren) {
+				out.write("\t@java.lang.Override public int childCount() {\n");
+				out.write("\t\tint count = 0;\n");
+				for (FieldData data : fields) {
+					if (!data.isAstNode()) continue;
+					if (!data.isList()) {
+						out.write(String.format("\t\tif (this.%s != null) count++;\n", data.getName()));
+					} else {
+						out.write(String.format("\t\tcount += this.%s.size();\n", data.getName()));
+					}
+				}
+				out.write("\t\treturn count;\n\t}\n\t\n");
+				
+				out.write("\t@java.lang.Override public Node childAt(int index) {\n");
+				out.write("\t\tint i = index;\n");
+				out.write("\t\tif (i >= 0) {\n");
+				FieldData last = null;
+				for (FieldData data : fields) if (data.isAstNode()) last = data;
+				for (FieldData data : fields) {
+					if (!data.isAstNode()) continue;
+					if (!data.isList()) {
+						if (data == last) {
+							out.write(String.format("\t\t\tif (this.%s != null && i == 0) return this.%s;\n", data.getName(), data.getName()));
+							continue;
+						}
+						out.write(String.format("\t\t\tif (this.%s != null) {\n", data.getName()));
+						out.write(String.format("\t\t\t\tif (i == 0) return this.%s;\n", data.getName()));
+						out.write("\t\t\t\ti--;\n");
+						out.write("\t\t\t}\n");
+					} else {
+						out.write(String.format("\t\t\tif (i < this.%s.size()) return this.%s.get(i);\n", data.getName(), data.getName()));
+						if (data != last) out.write(String.format("\t\t\ti -= this.%s.size();\n", data.getName()));
+					}
+				}
+				out.write("\t\t}\n");
+				out.write("\t\tthrow new java.lang.IndexOutOfBoundsException(\"Index: \" + index + \", Size: \" + childCount());\n");
+				out.write("\t}\n\t\n");
+				
+				out.write("\t@java.lang.Override public void forEachChild(lombok.ast.ChildVisitor visitor) {\n");
+				for (FieldData data : fields) {
+					if (!data.isAstNode()) continue;
+					if (!data.isList()) {
+						out.write(String.format("\t\tif (this.%s != null) visitor.visitChild(this.%s);\n", data.getName(), data.getName()));
+					} else {
+						out.write(String.format("\t\tfor (int i = 0; i < this.%s.size(); i++) visitor.visitChild(this.%s.get(i));\n", data.getName(), data.getName()));
+					}
 				}
+				out.write("\t}\n\t\n");
 			}
-			out.write("\t\treturn result;\n\t}\n\t\n");
 		}
 		
 		/* replaceChild */ {
@@ -698,7 +734,7 @@ public class TemplateProcessor extends AbstractProcessor {
 				} else if (field.isList()) {
 					out.write("\t\tfor (Node n : this.");
 					out.write(field.getName());
-					out.write(".backingList()) {\n\t\t\tresult.raw");
+					out.write(".asIterable()) {\n\t\t\tresult.raw");
 					out.write(field.titleCasedName());
 					out.write("().addToEnd(n == null ? null : n.copy());\n\t\t}\n");
 				} else {
@@ -714,6 +750,24 @@ public class TemplateProcessor extends AbstractProcessor {
 			out.write("\t\treturn result;\n\t}\n\t\n");
 		}
 		
+		/* serialization */ {
+			boolean callSuper = extending != null && !extending.equals("lombok.ast.AbstractNode");
+			out.write("\t@java.lang.Override void writeFields(lombok.ast.NodeWriter out) throws java.io.IOException {\n");
+			if (callSuper) out.write("\t\tsuper.writeFields(out);\n");
+			for (FieldData field : fields) generateWriteField(out, field);
+			out.write("\t}\n\t\n");
+			
+			out.write("\t@java.lang.Override void readFields(lombok.ast.NodeReader in) throws java.io.IOException {\n");
+			if (callSuper) out.write("\t\tsuper.readFields(in);\n");
+			for (FieldData field : fields) generateReadField(out, field);
+			out.write("\t}\n\t\n");
+			
+			out.write(String.format(
+					"\tpublic static %1$s readFrom(java.io.DataInput in) throws java.io.IOException {\n" +
+					"\t\treturn lombok.ast.NodeReader.read(in, %1$s.class);\n" +
+					"\t}\n\t\n", typeName));
+		}
+		
 		/* extra methods */ {
 			for (ExecutableElement delegate : methodsToCopy) {
 				boolean isVoid = delegate.getReturnType().getKind() == TypeKind.VOID;
@@ -786,6 +840,72 @@ public class TemplateProcessor extends AbstractProcessor {
 		out.close();
 	}
 	
+	private void generateWriteField(Writer out, FieldData field) throws IOException {
+		if (field.isList()) {
+			out.write(String.format("\t\tout.writeNodes(this.raw%s());\n", field.titleCasedName()));
+			return;
+		}
+		if (field.isAstNode()) {
+			out.write(String.format("\t\tout.writeNode(this.%s);\n", field.getName()));
+			return;
+		}
+		
+		String kind = getSerializedKind(field);
+		out.write(String.format("\t\tout.write%s(this.%s);\n", kind, field.getName()));
+		if (!field.getRawFormParser().isEmpty()) {
+			out.write(String.format("\t\tout.writeString(this.raw%s);\n", field.titleCasedName()));
+			out.write(String.format("\t\tout.writeString(this.errorReasonFor%s);\n", field.titleCasedName()));
+		}
+	}
+	
+	private void generateReadField(Writer out, FieldData field) throws IOException {
+		if (field.isList()) {
+			out.write(String.format("\t\tin.readChildren(this.raw%s());\n", field.titleCasedName()));
+			return;
+		}
+		if (field.isAstNode()) {
+			out.write(String.format("\t\tthis.raw%s(in.readChild());\n", field.titleCasedName()));
+			return;
+		}
+		
+		String kind = getSerializedKind(field);
+		if (kind.equals("Positions")) {
+			out.write(String.format("\t\tin.readPositions(this.%s);\n", field.getName()));
+		} else if (kind.equals("Enum")) {
+			out.write(String.format("\t\tthis.%s = in.readEnum(%s.class);\n", field.getName(), field.getType()));
+		} else {
+			out.write(String.format("\t\tthis.%s = in.read%s();\n", field.getName(), kind));
+		}
+		if (!field.getRawFormParser().isEmpty()) {
+			out.write(String.format("\t\tthis.raw%s = in.readString();\n", field.titleCasedName()));
+			out.write(String.format("\t\tthis.errorReasonFor%s = in.readString();\n", field.titleCasedName()));
+		}
+	}
+	
+	private static final Map<String, String> SERIALIZED_KINDS; static {
+		Map<String, String> m = new HashMap<String, String>();
+		m.put("boolean", "Boolean");
+		m.put("int", "SignedVarInt");
+		m.put("java.lang.String", "String");
+		m.put("java.lang.Boolean", "BoxedBoolean");
+		m.put("java.lang.Character", "BoxedCharacter");
+		m.put("java.lang.Long", "BoxedLong");
+		m.put("java.lang.Double", "BoxedDouble");
+		m.put("java.util.List<lombok.ast.Position>", "Positions");
+		SERIALIZED_KINDS = Collections.unmodifiableMap(m);
+	}
+	
+	/**
+	 * Returns the suffix of the {@code NodeWriter.write*} and {@code NodeReader.read*} methods for a non-node field, for example {@code "Enum"} or {@code "BoxedLong"}.
+	 */
+	private String getSerializedKind(FieldData field) {
+		TypeMirror type = field.getElement().asType();
+		String kind = SERIALIZED_KINDS.get(type.toString());
+		if (kind != null) return kind;
+		if (type instanceof DeclaredType && ((DeclaredType) type).asElement().getKind() == ElementKind.ENUM) return "Enum";
+		throw new IllegalArgumentException("We don't support serializing fields of type " + type + " (field " + field.getName() + ")");
+	}
+	
 	private void generateUpMethod(Writer out, ParentRelation relation) throws IOException {
 		out.write(String.format("\tpublic %s %s() {\n", relation.getTypeNameTo(), relation.getMethodName()));
 		out.write(String.format("\t\tif (!(this.getParent() instanceof %s)) return null;\n", relation.getTypeNameTo()));
@@ -2,9 +2,11 @@ package lombok.ast;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -114,4 +116,190 @@ public class ListAccessorTest {
 		assertEquals(n2, it.next());
 		assertFalse(it.hasNext());
 	}
+	
+	@Test
+	public void testGrowAndShrink() {
+		Modifiers parent = new Modifiers();
+		ListAccessor<Identifier, Modifiers> acc = ListAccessor.of(parent, Identifier.class, "identifiers");
+		RawListAccessor<Identifier, Modifiers> raw = acc.asRaw();
+		Identifier n1 = new Identifier();
+		Identifier n2 = new Identifier();
+		Identifier n3 = new Identifier();
+		
+		assertEquals(0, acc.size());
+		assertFalse(acc.asIterable().iterator().hasNext());
+		raw.addToEnd(n2);
+		assertEquals(1, raw.size());
+		assertSame(n2, raw.first());
+		assertSame(n2, raw.last());
+		raw.addBefore(n2, n1);
+		raw.addAfter(n2, n3);
+		assertEquals(3, raw.size());
+		assertSame(n1, acc.get(0));
+		assertSame(n2, acc.get(1));
+		assertSame(n3, acc.get(2));
+		
+		assertTrue(raw.remove(n1));
+		assertTrue(raw.remove(n3));
+		assertEquals(1, raw.size());
+		assertSame(n2, raw.first());
+		raw.clear();
+		assertTrue(raw.isEmpty());
+		assertNull(raw.first());
+		
+		Identifier n4 = new Identifier();
+		Identifier n5 = new Identifier();
+		raw.addToStart(n4, n5);
+		assertSame(n4, raw.first());
+		assertSame(n5, raw.last());
+	}
+	
+	@Test
+	public void testSingleElement() {
+		Modifiers parent = new Modifiers();
+		ListAccessor<Identifier, Modifiers> acc = ListAccessor.of(parent, Identifier.class, "identifiers");
+		Identifier n1 = new Identifier();
+		Identifier n2 = new Identifier();
+		
+		acc.asStrict().addToEnd(n1);
+		Iterable<AbstractNode> snapshot = acc.asIterable();
+		assertTrue(acc.asStrict().contains(n1));
+		acc.asStrict().replace(n1, n2);
+		assertSame(n2, acc.asStrict().first());
+		assertNull(n1.getParent());
+		assertSame(parent, n2.getParent());
+		assertSame(n1, snapshot.iterator().next());
+		
+		ListAccessor<Identifier, Modifiers> wrapped = acc.wrap(new Modifiers());
+		assertSame(n2, wrapped.asStrict().first());
+		wrapped.asRaw().remove(n2);
+		assertEquals(0, acc.size());
+		try {
+			acc.get(0);
+			fail("get(0) on an empty accessor did not throw");
+		} catch (IndexOutOfBoundsException expected) {}
+	}
+	
+	@Test
+	public void testAddAll() {
+		Modifiers parent = new Modifiers();
+		RawListAccessor<Identifier, Modifiers> raw = ListAccessor.of(parent, Identifier.class, "identifiers").asRaw();
+		Identifier n1 = new Identifier();
+		Identifier n2 = new Identifier();
+		Identifier n3 = new Identifier();
+		Identifier n4 = new Identifier();
+		
+		raw.addAll(0, n1, null, n4);
+		raw.addAll(1, n2, n3);
+		Iterator<Node> it = raw.iterator();
+		assertSame(n1, it.next());
+		assertSame(n2, it.next());
+		assertSame(n3, it.next());
+		assertSame(n4, it.next());
+		assertFalse(it.hasNext());
+		assertSame(parent, n3.getParent());
+		
+		try {
+			raw.addAll(5, new Identifier());
+			fail("addAll beyond the end did not throw");
+		} catch (IndexOutOfBoundsException expected) {}
+		
+		Identifier twice = new Identifier();
+		Identifier once = new Identifier();
+		try {
+			raw.addAll(0, once, twice, twice);
+			fail("addAll with the same node twice did not throw");
+		} catch (IllegalStateException expected) {}
+		assertNull(once.getParent());
+		assertNull(twice.getParent());
+		assertEquals(4, raw.size());
+	}
+	
+	@Test
+	public void testLookupsAfterShifts() {
+		Modifiers parent = new Modifiers();
+		ListAccessor<Identifier, Modifiers> acc = ListAccessor.of(parent, Identifier.class, "identifiers");
+		RawListAccessor<Identifier, Modifiers> raw = acc.asRaw();
+		List<Identifier> expected = new ArrayList<Identifier>();
+		Random random = new Random(4);
+		
+		for (int i = 0; i < 500; i++) {
+			Identifier n = new Identifier();
+			if (expected.isEmpty()) {
+				raw.addToEnd(n);
+				expected.add(n);
+				continue;
+			}
+			int at = random.nextInt(expected.size());
+			Identifier ref = expected.get(at);
+			switch (random.nextInt(5)) {
+			case 0:
+				raw.addBefore(ref, n);
+				expected.add(at, n);
+				break;
+			case 1:
+				raw.addAfter(ref, n);
+				expected.add(at + 1, n);
+				break;
+			case 2:
+				assertTrue(raw.remove(ref));
+				expected.remove(at);
+				break;
+			case 3:
+				assertTrue(raw.replace(ref, n));
+				expected.set(at, n);
+				break;
+			default:
+				Identifier other = new Identifier();
+				raw.addAll(at, n, other);
+				expected.add(at, other);
+				expected.add(at, n);
+			}
+			
+			assertEquals(expected.size(), acc.size());
+			if (!expected.isEmpty()) assertTrue(raw.contains(expected.get(random.nextInt(expected.size()))));
+		}
+		
+		for (int i = 0; i < expected.size(); i++) assertSame(expected.get(i), acc.get(i));
+		assertFalse(raw.contains(new Identifier()));
+	}
+	
+	@Test
+	public void testChildInOtherField() {
+		MethodDeclaration method = new MethodDeclaration().astBody(new Block());
+		method.astParameters().addToEnd(new VariableDefinition());
+		Node body = method.rawBody();
+		VariableDefinition parameter = method.astParameters().first();
+		
+		assertFalse(method.rawThrownTypeReferences().contains(body));
+		assertFalse(method.rawThrownTypeReferences().remove(body));
+		assertFalse(method.rawThrownTypeReferences().replace(body, new TypeReference()));
+		assertFalse(method.rawThrownTypeReferences().contains(parameter));
+		assertFalse(method.rawTypeVariables().remove(parameter));
+		assertSame(method, body.getParent());
+		assertSame(method, parameter.getParent());
+		
+		method.astThrownTypeReferences().addToEnd(new TypeReference());
+		assertFalse(method.rawThrownTypeReferences().contains(parameter));
+		assertFalse(method.rawThrownTypeReferences().remove(parameter));
+	}
+	
+	@Test
+	public void testIndicesAfterAddToStart() {
+		Modifiers parent = new Modifiers();
+		ListAccessor<Identifier, Modifiers> acc = ListAccessor.of(parent, Identifier.class, "identifiers");
+		List<Identifier> added = new ArrayList<Identifier>();
+		for (int i = 0; i < 50; i++) {
+			Identifier n = new Identifier();
+			acc.asRaw().addToStart(n);
+			added.add(n);
+		}
+		for (int i = 0; i < added.size(); i++) assertEquals(added.size() - 1 - i, added.get(i).getIndexInParent());
+		
+		Identifier inserted = new Identifier();
+		acc.asRaw().addAfter(added.get(0), inserted);
+		assertSame(inserted, acc.asRaw().last());
+		assertTrue(acc.asRaw().remove(added.get(49)));
+		for (int i = 0; i < acc.size(); i++) assertEquals(i, acc.get(i).getIndexInParent());
+	}
 }
@@ -0,0 +1,81 @@
+package lombok.ast;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class NodeChildrenTest {
+	private static MethodDeclaration method() {
+		MethodDeclaration method = new MethodDeclaration()
+				.astModifiers(new Modifiers())
+				.astMethodName(Identifier.of("m"))
+				.astBody(new Block());
+		method.astParameters().addToEnd(new VariableDefinition(), new VariableDefinition());
+		method.astThrownTypeReferences().addToEnd(new TypeReference());
+		return method;
+	}
+	
+	@Test
+	public void testLeaf() {
+		Identifier id = Identifier.of("x");
+		assertEquals(0, id.childCount());
+		assertTrue(id.getChildren().isEmpty());
+		try {
+			id.childAt(0);
+			fail();
+		} catch (IndexOutOfBoundsException expected) {}
+	}
+	
+	@Test
+	public void testChildAtFollowsFieldOrder() {
+		MethodDeclaration method = method();
+		List<Node> expected = Lists.<Node>newArrayList(method.astModifiers(), method.astMethodName());
+		for (Node n : method.astParameters()) expected.add(n);
+		for (Node n : method.astThrownTypeReferences()) expected.add(n);
+		expected.add(method.astBody());
+		
+		assertEquals(expected.size(), method.childCount());
+		for (int i = 0; i < expected.size(); i++) assertSame(expected.get(i), method.childAt(i));
+		assertEquals(expected, method.getChildren());
+		
+		final List<Node> visited = Lists.newArrayList();
+		method.forEachChild(new ChildVisitor() {
+			@Override public void visitChild(Node child) {
+				visited.add(child);
+			}
+		});
+		assertEquals(expected, visited);
+		
+		for (int index : Arrays.asList(-1, expected.size())) {
+			try {
+				method.childAt(index);
+				fail("childAt(" + index + ") did not throw");
+			} catch (IndexOutOfBoundsException e) {}
+		}
+	}
+	
+	@Test
+	public void testChildrenIsLiveReadOnlyView() {
+		MethodDeclaration method = method();
+		List<Node> children = method.getChildren();
+		int size = children.size();
+		method.astBody(null);
+		assertEquals(size - 1, children.size());
+		try {
+			children.add(new Block());
+			fail();
+		} catch (UnsupportedOperationException expected) {}
+		
+		Block block = new Block();
+		List<Node> blockChildren = block.getChildren();
+		assertEquals(0, blockChildren.size());
+		block.rawContents().addToEnd(new EmptyStatement());
+		assertEquals(1, blockChildren.size());
+		assertSame(block.rawContents().first(), blockChildren.get(0));
+	}
+}
@@ -0,0 +1,79 @@
+package lombok.ast;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class NodePositionTest {
+	@Test
+	public void testUnplaced() {
+		Identifier id = new Identifier();
+		assertEquals(-1, id.getStart());
+		assertEquals(-1, id.getEnd());
+		assertSame(Position.UNPLACED, id.getPosition());
+		assertFalse(id.isGenerated());
+	}
+	
+	@Test
+	public void testRangeWithoutPositionObject() {
+		Identifier id = new Identifier();
+		id.setRange(3, 8);
+		assertEquals(3, id.getStart());
+		assertEquals(8, id.getEnd());
+		assertEquals(new Position(3, 8), id.getPosition());
+		
+		id.setRange(4, 8);
+		assertEquals(new Position(4, 8), id.getPosition());
+	}
+	
+	@Test
+	public void testSetPositionIsCopied() {
+		Position p = new Position(1, 2);
+		Identifier id = new Identifier();
+		id.setPosition(p);
+		assertEquals(p, id.getPosition());
+		assertEquals(1, id.getStart());
+		assertEquals(2, id.getEnd());
+	}
+	
+	@Test
+	public void testRangeKeepsGeneratedBy() {
+		Node responsible = new Identifier();
+		Identifier id = new Identifier();
+		id.setPosition(new Position(5, 5, responsible));
+		id.setRange(5, 9);
+		assertTrue(id.isGenerated());
+		assertSame(responsible, id.getGeneratedBy());
+		assertEquals(new Position(5, 9, responsible), id.getPosition());
+		
+		id.setPosition(new Position(5, 9));
+		assertFalse(id.isGenerated());
+	}
+	
+	@Test
+	public void testPositionFactory() {
+		Identifier id = new Identifier();
+		id.setPositionFactory(new PositionFactory() {
+			@Override public Position getPosition(Node node) {
+				return new Position(10, 20);
+			}
+		});
+		assertEquals(10, id.getStart());
+		assertEquals(20, id.getEnd());
+		assertEquals(new Position(10, 20), id.getPosition());
+		
+		Identifier unknown = new Identifier();
+		unknown.setPositionFactory(new PositionFactory() {
+			@Override public Position getPosition(Node node) {
+				return Position.UNPLACED;
+			}
+		});
+		assertSame(Position.UNPLACED, unknown.getPosition());
+		
+		Identifier placed = new Identifier();
+		placed.setRange(1, 2);
+		placed.setPositionFactory(id.getPositionFactory());
+		assertEquals(1, placed.getStart());
+		assertEquals(new Position(1, 2), placed.getPosition());
+	}
+}
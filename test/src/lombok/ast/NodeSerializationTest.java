@@ -0,0 +1,79 @@
+package lombok.ast;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class NodeSerializationTest {
+	@Test
+	public void testRoundTrip() throws IOException {
+		Comment javadoc = new Comment().astBlockComment(true).astContent("* Docs");
+		javadoc.setPosition(new Position(0, 10));
+		IntegralLiteral five = new IntegralLiteral().astIntValue(5);
+		five.astParensPositions().add(new Position(30, 33));
+		MethodDeclaration method = new MethodDeclaration()
+				.astJavadoc(javadoc)
+				.astMethodName(new Identifier().astValue("foo"))
+				.astReturnTypeReference(new TypeReference().astParts().addToEnd(new TypeReferencePart().astIdentifier(new Identifier().astValue("int"))))
+				.astBody(new Block().astContents().addToEnd(new Return().astValue(new BinaryExpression()
+						.astLeft(five).astOperator(BinaryOperator.MULTIPLY).astRight(new CharLiteral().astValue('x')))));
+		method.setPosition(new Position(11, 40));
+		
+		MethodDeclaration copy = MethodDeclaration.readFrom(in(bytes(method)));
+		assertEquals(method.toString(), copy.toString());
+		assertEquals(method.getPosition(), copy.getPosition());
+		assertEquals("* Docs", copy.astJavadoc().astContent());
+		assertEquals(javadoc.getPosition(), copy.astJavadoc().getPosition());
+		assertSame(copy, copy.astJavadoc().getParent());
+		
+		BinaryExpression expr = (BinaryExpression) ((Return) copy.astBody().astContents().first()).astValue();
+		assertEquals(BinaryOperator.MULTIPLY, expr.astOperator());
+		assertEquals(five.astParensPositions(), expr.astLeft().astParensPositions());
+		assertEquals(Character.valueOf('x'), ((CharLiteral) expr.astRight()).astValue());
+	}
+	
+	@Test
+	public void testErrorReasons() throws IOException {
+		IntegralLiteral broken = new IntegralLiteral().rawValue("0xZZ");
+		assertNotNull(broken.getErrorReasonForValue());
+		IntegralLiteral copy = IntegralLiteral.readFrom(in(bytes(broken)));
+		assertEquals("0xZZ", copy.rawValue());
+		assertEquals(broken.getErrorReasonForValue(), copy.getErrorReasonForValue());
+		
+		StringLiteral unterminated = new StringLiteral().rawValue("\"foo");
+		StringLiteral stringCopy = StringLiteral.readFrom(in(bytes(unterminated)));
+		assertEquals("\"foo", stringCopy.rawValue());
+		assertEquals(unterminated.getErrorReasonForValue(), stringCopy.getErrorReasonForValue());
+	}
+	
+	@Test
+	public void testStringsAreShared() throws IOException {
+		Block block = new Block();
+		for (int i = 0; i < 100; i++) {
+			block.astContents().addToEnd(new ExpressionStatement().astExpression(new VariableReference().astIdentifier(new Identifier().astValue("someLongIdentifierName"))));
+		}
+		assertTrue(bytes(block).length < 100 * "someLongIdentifierName".length());
+		assertEquals(block.toString(), Block.readFrom(in(bytes(block))).toString());
+	}
+	
+	@Test(expected = IOException.class)
+	public void testWrongType() throws IOException {
+		Identifier.readFrom(in(bytes(new Block())));
+	}
+	
+	private static byte[] bytes(Node node) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		((AbstractNode) node).writeTo(new DataOutputStream(out));
+		return out.toByteArray();
+	}
+	
+	private static DataInputStream in(byte[] bytes) {
+		return new DataInputStream(new ByteArrayInputStream(bytes));
+	}
+}
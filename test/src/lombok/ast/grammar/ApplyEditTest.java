@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import static lombok.ast.grammar.StructurePrinting.print;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+
+import lombok.ast.Block;
+import lombok.ast.ForwardingAstVisitor;
+import lombok.ast.MethodDeclaration;
+import lombok.ast.Node;
+import lombok.ast.grammar.RunForEachFileInDirRunner.DirDescriptor;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(RunForEachFileInDirRunner.class)
+public class ApplyEditTest extends RunForEachFileInDirRunner.SourceFileBasedTester {
+	@Override
+	protected Collection<DirDescriptor> getDirDescriptors() {
+		return Collections.singleton(DirDescriptor.of(new File("test/resources/idempotency"), true));
+	}
+	
+	@Test
+	public boolean testEditInMethodBody(Source source) {
+		source.parseCompilationUnit();
+		final Block[] body = new Block[1];
+		source.getNodes().get(0).accept(new ForwardingAstVisitor() {
+			@Override public boolean visitMethodDeclaration(MethodDeclaration node) {
+				if (body[0] == null && node.astBody() != null) body[0] = node.astBody();
+				return false;
+			}
+		});
+		if (body[0] == null) return false;
+		
+		boolean canBeIncremental = source.getProblems().isEmpty() && source.getRawInput().indexOf("\\u") == -1;
+		Node replacement = source.applyEdit(body[0].getPosition().getStart() + 1, 0, "\n\t\tint insertedByEdit = 0;\n");
+		if (canBeIncremental) assertNotNull("Edit did not reparse incrementally", replacement);
+		
+		Source expected = new Source(source.getRawInput(), source.getName());
+		expected.parseCompilationUnit();
+		assertEquals(print(expected), print(source));
+		assertEquals(expected.getProblems(), source.getProblems());
+		return true;
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.regex.Pattern;
+
+import lombok.ast.Node;
+import lombok.ast.grammar.RunForEachFileInDirRunner.DirDescriptor;
+
+import org.eclipse.jdt.internal.compiler.ast.ASTNode;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Builds ecj trees out of sources restored from a {@link ParseCache}, which have no parse tree of their own, the way {@code Main}'s
+ * {@code lombok,ecj} operation does when given a cache.
+ */
+@RunWith(RunForEachFileInDirRunner.class)
+public class CachedEcjTreeBuilderTest extends EcjTreeBuilderTest {
+	@Override protected Collection<DirDescriptor> getDirDescriptors() {
+		return Arrays.asList(
+				DirDescriptor.of(new File("test/resources/idempotency"), true).withExclusion(Pattern.compile(".*EclipseHasBugs.*")),
+				DirDescriptor.of(new File("test/resources/special"), true).withExclusion(Pattern.compile(".*EclipseHasBugs.*")));
+	}
+	
+	@Test
+	public boolean testCachedEcjTreeBuilder(Source source) throws Exception {
+		return testCompiler(source);
+	}
+	
+	@Override protected ASTNode parseWithLombok(Source source) {
+		ParseCache cache = new ParseCache(1);
+		cache.parseCompilationUnit(new Source(source.getRawInput(), source.getName()));
+		Source restored = new Source(source.getRawInput(), source.getName());
+		cache.parseCompilationUnit(restored);
+		assertEquals(1, cache.getHits());
+		
+		Node root = restored.getNodes().get(0);
+		ASTNode tree = super.parseWithLombok(restored);
+		assertSame(root, restored.getNodes().get(0));
+		return tree;
+	}
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class CharClassesTest {
+	@Test
+	public void testIdentifierCharsMatchCharacter() {
+		for (int i = 0; i <= Character.MAX_VALUE; i++) {
+			char c = (char) i;
+			assertEquals("start " + i, Character.isJavaIdentifierStart(c), CharClasses.isIdentifierStart(c));
+			assertEquals("part " + i, Character.isJavaIdentifierPart(c), CharClasses.isIdentifierPart(c));
+			assertEquals("start " + i, Character.isJavaIdentifierStart(c), CharClasses.is(c, CharClasses.IDENTIFIER_START));
+			assertEquals("part " + i, Character.isJavaIdentifierPart(c), CharClasses.is(c, CharClasses.IDENTIFIER_PART));
+		}
+	}
+	
+	@Test
+	public void testLexicalClasses() {
+		for (int i = 0; i <= Character.MAX_VALUE; i++) {
+			char c = (char) i;
+			assertEquals("digit " + i, c >= '0' && c <= '9', CharClasses.is(c, CharClasses.DIGIT));
+			assertEquals("octal " + i, c >= '0' && c <= '7', CharClasses.is(c, CharClasses.OCTAL_DIGIT));
+			assertEquals("hex " + i, "0123456789abcdefABCDEF".indexOf(c) != -1, CharClasses.is(c, CharClasses.HEX_DIGIT));
+			assertEquals("whitespace " + i, " \t\f\r\n".indexOf(c) != -1, CharClasses.is(c, CharClasses.WHITESPACE));
+		}
+	}
+}
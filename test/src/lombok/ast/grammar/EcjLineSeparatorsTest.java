@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import static org.junit.Assert.*;
+
+import lombok.ast.ecj.EcjTreeBuilder;
+
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.eclipse.jdt.internal.compiler.DefaultErrorHandlingPolicies;
+import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.jdt.internal.compiler.problem.DefaultProblemFactory;
+import org.eclipse.jdt.internal.compiler.problem.ProblemReporter;
+import org.junit.Test;
+
+public class EcjLineSeparatorsTest {
+	private static final String SOURCE = "class A {\r\n\tint a;\n}\r";
+	
+	@Test
+	public void testFilledWhenUnset() {
+		CompilationResult result = new CompilationResult("A.java".toCharArray(), 0, 0, 0);
+		new EcjTreeBuilder(SOURCE, reporter(), reporter(), result);
+		assertArrayEquals(new int[] {10, 18, 20}, result.lineSeparatorPositions);
+	}
+	
+	@Test
+	public void testKeptWhenSet() {
+		CompilationResult result = new CompilationResult("A.java".toCharArray(), 0, 0, 0);
+		int[] fromEcj = {10};
+		result.lineSeparatorPositions = fromEcj;
+		new EcjTreeBuilder(SOURCE, reporter(), reporter(), result);
+		assertSame(fromEcj, result.lineSeparatorPositions);
+	}
+	
+	private static ProblemReporter reporter() {
+		return new ProblemReporter(DefaultErrorHandlingPolicies.proceedWithAllProblems(), new CompilerOptions(), new DefaultProblemFactory());
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FailFastPositionTest {
+	private static final String TWO_ERRORS =
+			"class A {\n" +
+			"\tint a = ;\n" +
+			"\tint b = ;\n" +
+			"}\n";
+	
+	@Test
+	public void testStopsAtFirstError() {
+		Source source = new Source(TWO_ERRORS, "A.java");
+		source.parseCompilationUnit(new ParseOptions().failFast(true));
+		
+		assertEquals(1, source.getProblems().size());
+		assertTrue(source.getNodes().isEmpty());
+		assertEquals(TWO_ERRORS.indexOf("= ;") + 2, source.getProblems().get(0).getPosition().getStart());
+	}
+	
+	@Test
+	public void testFirstErrorMatchesRecovery() {
+		Source failFast = new Source(TWO_ERRORS, "A.java");
+		failFast.parseCompilationUnit(new ParseOptions().failFast(true));
+		Source recovering = new Source(TWO_ERRORS, "A.java");
+		recovering.parseCompilationUnit();
+		
+		assertTrue(recovering.getProblems().size() > 1);
+		assertEquals(recovering.getProblems().get(0).getPosition().getStart(), failFast.getProblems().get(0).getPosition().getStart());
+	}
+	
+	@Test
+	public void testValidInputParsesNormally() {
+		Source source = new Source("class A {\n\tint a = 1;\n}\n", "A.java");
+		source.parseCompilationUnit(new ParseOptions().failFast(true));
+		
+		assertTrue(source.getProblems().isEmpty());
+		assertEquals(1, source.getNodes().size());
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import static lombok.ast.grammar.StructurePrinting.print;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+
+import lombok.ast.grammar.RunForEachFileInDirRunner.DirDescriptor;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.google.common.collect.Lists;
+
+@RunWith(RunForEachFileInDirRunner.class)
+public class FailFastTest extends RunForEachFileInDirRunner.SourceFileBasedTester {
+	private static final boolean VERBOSE = System.getProperty("lombok.ast.test.verbose") != null;
+	private static final boolean EXTENDED = System.getProperty("lombok.ast.test.extended") != null;
+	private static final int REPS = 50;
+	private static long failFastTotal, recoveringTotal;
+	
+	@Override
+	protected Collection<DirDescriptor> getDirDescriptors() {
+		List<DirDescriptor> descriptors = Lists.newArrayList();
+		descriptors.add(DirDescriptor.of(new File("test/resources/idempotency"), true));
+		descriptors.add(DirDescriptor.of(new File("test/resources/parseErrors"), true));
+		return descriptors;
+	}
+	
+	@AfterClass
+	public void summary() {
+		if (VERBOSE && EXTENDED) {
+			System.out.printf("[%20s / %30s] fail fast: %5d recovering: %5d [%6.02f]\n",
+					"", "*** FAIL FAST ***",
+					failFastTotal, recoveringTotal, (double)recoveringTotal / failFastTotal);
+		}
+	}
+	
+	@Test
+	public void testFailFastAgreesWithRecovery(Source source) {
+		Source failFast = new Source(source.getRawInput(), source.getName());
+		failFast.parseCompilationUnit(new ParseOptions().failFast(true));
+		source.parseCompilationUnit();
+		
+		if (source.getProblems().isEmpty()) {
+			assertEquals(print(source), print(failFast));
+			assertTrue(failFast.getProblems().isEmpty());
+		} else {
+			assertEquals(1, failFast.getProblems().size());
+			assertTrue(failFast.getNodes().isEmpty());
+			int errorAt = failFast.getProblems().get(0).getPosition().getStart();
+			assertTrue(errorAt >= 0 && errorAt <= source.getRawInput().length());
+		}
+	}
+	
+	/**
+	 * Compares stopping at the first syntax error against parsing again with error recovery. On valid input both do the same work.
+	 */
+	@Test
+	public boolean testFailFastTiming(Source source) {
+		if (!EXTENDED) return false;
+		long takenFailFast = timeParses(source, new ParseOptions().failFast(true));
+		failFastTotal += takenFailFast;
+		long takenRecovering = timeParses(source, new ParseOptions());
+		recoveringTotal += takenRecovering;
+		
+		if (VERBOSE) {
+			System.out.printf("[%s] fail fast: %5d recovering: %5d [%6.02f]\n",
+					source.getName(), takenFailFast, takenRecovering, (double)takenRecovering / Math.max(1, takenFailFast));
+		}
+		
+		return true;
+	}
+	
+	private static long timeParses(Source source, ParseOptions options) {
+		Source copy = new Source(source.getRawInput(), source.getName());
+		copy.parseCompilationUnit(options);
+		long taken = System.currentTimeMillis();
+		for (int i = 0; i < REPS; i++) {
+			copy.clear();
+			copy.parseCompilationUnit();
+		}
+		return System.currentTimeMillis() - taken;
+	}
+}
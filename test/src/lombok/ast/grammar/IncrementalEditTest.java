@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import static lombok.ast.grammar.StructurePrinting.print;
+import static lombok.ast.grammar.StructurePrinting.printWithStructures;
+import static org.junit.Assert.*;
+
+import lombok.ast.Block;
+import lombok.ast.Comment;
+import lombok.ast.CompilationUnit;
+import lombok.ast.ExpressionStatement;
+import lombok.ast.MethodDeclaration;
+import lombok.ast.Node;
+import lombok.ast.TypeDeclaration;
+
+import org.junit.Test;
+
+public class IncrementalEditTest {
+	private static final String EDITABLE =
+			"class Edit {\n" +
+			"\t/** Returns one. */\n" +
+			"\tint one() {\n" +
+			"\t\tint a = 1;\n" +
+			"\t\tint b = 2;\n" +
+			"\t\treturn a;\n" +
+			"\t}\n" +
+			"\t\n" +
+			"\tvoid other() {\n" +
+			"\t\t// a comment\n" +
+			"\t\tSystem.out.println();\n" +
+			"\t}\n" +
+			"}\n";
+	
+	@Test
+	public void testDeletion() {
+		Source source = parsed(EDITABLE);
+		String removed = "\t\tint b = 2;\n";
+		assertNotNull(source.applyEdit(EDITABLE.indexOf(removed), removed.length(), ""));
+		assertSameAsFullParse(source);
+	}
+	
+	@Test
+	public void testReplacementAcrossStatements() {
+		Source source = parsed(EDITABLE);
+		String replaced = "1;\n\t\tint b";
+		Node replacement = source.applyEdit(EDITABLE.indexOf(replaced), replaced.length(), "1 + 2;\n\t\tlong b");
+		assertTrue(String.valueOf(replacement), replacement instanceof Block);
+		assertSameAsFullParse(source);
+	}
+	
+	@Test
+	public void testEditInComment() {
+		Source source = parsed(EDITABLE);
+		String replaced = "a comment";
+		assertNotNull(source.applyEdit(EDITABLE.indexOf(replaced), replaced.length(), "an edited comment"));
+		assertSameAsFullParse(source);
+		assertTrue(comments(source).contains("an edited comment"));
+	}
+	
+	@Test
+	public void testEditInJavadoc() {
+		Source source = parsed(EDITABLE);
+		String replaced = "Returns one.";
+		source.applyEdit(EDITABLE.indexOf(replaced), replaced.length(), "Returns the number one.");
+		assertSameAsFullParse(source);
+		
+		TypeDeclaration type = ((CompilationUnit) source.getNodes().get(0)).astTypeDeclarations().first();
+		MethodDeclaration one = (MethodDeclaration) type.astBody().astMembers().first();
+		assertEquals("* Returns the number one. ", one.astJavadoc().astContent());
+	}
+	
+	@Test
+	public void testBuiltStructuresFollowTheEdit() {
+		Source source = parsed(EDITABLE);
+		source.getSourceStructures();
+		String removed = "\t\tint b = 2;\n";
+		assertNotNull(source.applyEdit(EDITABLE.indexOf(removed), removed.length(), ""));
+		assertSameStructuresAsFullParse(source);
+	}
+	
+	@Test
+	public void testStructuresAfterEditKeepTheNodes() {
+		Source source = parsed(EDITABLE);
+		Node root = source.getNodes().get(0);
+		String replaced = "System.out.println()";
+		Node replacement = source.applyEdit(EDITABLE.indexOf(replaced), replaced.length(), "System.err.println(1)");
+		assertNotNull(replacement);
+		
+		assertSameStructuresAsFullParse(source);
+		assertSame(root, source.getNodes().get(0));
+		assertSame(root, topOf(replacement));
+		assertTrue(source.getSourceStructures().containsKey(replacement));
+	}
+	
+	@Test
+	public void testEditInUnparsedLazyBody() {
+		Source source = new Source(EDITABLE, "Edit.java");
+		source.parseCompilationUnit(new ParseOptions().lazyBodies(true));
+		Node root = source.getNodes().get(0);
+		LazyBlock other = body(source, false);
+		other.astContents();
+		
+		String replaced = "int a = 1;";
+		Node replacement = source.applyEdit(EDITABLE.indexOf(replaced), replaced.length(), "int a = 10;");
+		assertTrue(String.valueOf(replacement), replacement instanceof LazyBlock);
+		assertFalse(((LazyBlock) replacement).isParsed());
+		assertSame(replacement, body(source, true));
+		assertSame(root, topOf(replacement));
+		assertSame(other, body(source, false));
+		assertTrue(other.isParsed());
+		
+		Source expected = new Source(source.getRawInput(), source.getName());
+		expected.parseCompilationUnit(new ParseOptions().lazyBodies(true));
+		assertEquals(print(expected), print(source));
+		assertEquals(expected.getProblems(), source.getProblems());
+	}
+	
+	@Test
+	public void testFallbackParsesWholeSource() {
+		Source source = parsed(EDITABLE);
+		String removed = "\t}\n\t\n\tvoid other() {\n";
+		assertNull(source.applyEdit(EDITABLE.indexOf(removed), removed.length(), ""));
+		assertSameAsFullParse(source);
+	}
+	
+	@Test
+	public void testFallbackKeepsEntryPoint() {
+		Source statement = new Source("foo(a);", "statement");
+		statement.parseStatement();
+		assertNull(statement.applyEdit(4, 1, "b, c"));
+		assertEquals(1, statement.getNodes().size());
+		assertTrue(statement.getNodes().get(0) instanceof ExpressionStatement);
+		assertTrue(statement.getProblems().isEmpty());
+		Source expectedStatement = new Source("foo(b, c);", "statement");
+		expectedStatement.parseStatement();
+		assertEquals(print(expectedStatement), print(statement));
+		
+		Source expression = new Source("a + b", "expression");
+		expression.parseExpression();
+		assertNull(expression.applyEdit(4, 1, "c * d"));
+		assertFalse(expression.getNodes().get(0) instanceof CompilationUnit);
+		Source expectedExpression = new Source("a + c * d", "expression");
+		expectedExpression.parseExpression();
+		assertEquals(print(expectedExpression), print(expression));
+	}
+	
+	private static Source parsed(String input) {
+		Source source = new Source(input, "Edit.java");
+		source.parseCompilationUnit();
+		assertTrue(source.getProblems().isEmpty());
+		return source;
+	}
+	
+	private static void assertSameAsFullParse(Source source) {
+		Source expected = new Source(source.getRawInput(), source.getName());
+		expected.parseCompilationUnit();
+		assertEquals(print(expected), print(source));
+		assertEquals(expected.getProblems(), source.getProblems());
+		assertEquals(comments(expected), comments(source));
+	}
+	
+	private static void assertSameStructuresAsFullParse(Source source) {
+		Source expected = new Source(source.getRawInput(), source.getName());
+		expected.parseCompilationUnit();
+		assertEquals(printWithStructures(expected), printWithStructures(source));
+	}
+	
+	private static Node topOf(Node node) {
+		Node top = node;
+		while (top.getParent() != null) top = top.getParent();
+		return top;
+	}
+	
+	/**
+	 * Returns the body of the first ({@code one()}) or the last ({@code other()}) method of {@link #EDITABLE}.
+	 */
+	private static LazyBlock body(Source source, boolean first) {
+		TypeDeclaration type = ((CompilationUnit) source.getNodes().get(0)).astTypeDeclarations().first();
+		MethodDeclaration method = (MethodDeclaration) (first ? type.astBody().astMembers().first() : type.astBody().astMembers().last());
+		return (LazyBlock) method.rawBody();
+	}
+	
+	private static String comments(Source source) {
+		StringBuilder out = new StringBuilder();
+		for (Comment comment : source.getComments()) {
+			out.append(comment.getPosition()).append(comment.astContent()).append('\n');
+		}
+		return out.toString();
+	}
+}
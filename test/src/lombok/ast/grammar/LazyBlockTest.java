@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import static org.junit.Assert.*;
+
+import lombok.ast.Block;
+import lombok.ast.ClassDeclaration;
+import lombok.ast.CompilationUnit;
+import lombok.ast.ForwardingAstVisitor;
+import lombok.ast.MethodDeclaration;
+
+import org.junit.Test;
+
+public class LazyBlockTest {
+	private static final String INPUT = "class A {\n\tvoid m() {\n\t\tint x = 1;\n\t\tx++;\n\t}\n}\n";
+	
+	@Test
+	public void testBodyIsParsedOnFirstAccess() {
+		Source source = lazy(INPUT);
+		LazyBlock body = body(source);
+		assertFalse(body.isParsed());
+		
+		assertEquals(2, body.astContents().size());
+		assertTrue(body.isParsed());
+		assertSame(body, body.astContents().first().getParent());
+	}
+	
+	@Test
+	public void testVisitorThatSkipsBodiesDoesNotParse() {
+		Source source = lazy(INPUT);
+		final int[] blocks = new int[1];
+		source.getNodes().get(0).accept(new ForwardingAstVisitor() {
+			@Override public boolean visitBlock(Block node) {
+				blocks[0]++;
+				return true;
+			}
+		});
+		assertEquals(1, blocks[0]);
+		assertFalse(body(source).isParsed());
+	}
+	
+	@Test
+	public void testProblemsInBodyShowUpOnceParsed() {
+		Source source = lazy("class A {\n\tvoid m() {\n\t\tint x = ;\n\t}\n}\n");
+		assertTrue(source.getProblems().isEmpty());
+		
+		body(source).astContents();
+		assertFalse(source.getProblems().isEmpty());
+		assertTrue(source.getProblems().get(0).getPosition().getStart() > "class A {\n\tvoid m() {".length());
+	}
+	
+	private static Source lazy(String input) {
+		Source source = new Source(input, "A.java");
+		source.parseCompilationUnit(new ParseOptions().lazyBodies(true));
+		return source;
+	}
+	
+	private static LazyBlock body(Source source) {
+		ClassDeclaration type = (ClassDeclaration) ((CompilationUnit) source.getNodes().get(0)).astTypeDeclarations().first();
+		MethodDeclaration method = (MethodDeclaration) type.astBody().astMembers().first();
+		return (LazyBlock) method.rawBody();
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import static org.junit.Assert.*;
+
+import lombok.ast.ClassDeclaration;
+import lombok.ast.CompilationUnit;
+import lombok.ast.MethodDeclaration;
+
+import org.junit.Test;
+
+public class LeanParseStateTest {
+	private static final String INPUT = "class A {\n\t/** Docs. */\n\tvoid m() {\n\t\t// inside\n\t\tint x = 1;\n\t}\n}\n";
+	
+	@Test
+	public void testParseStateIsDropped() {
+		Source full = new Source(INPUT, "A.java");
+		full.parseCompilationUnit();
+		assertNotNull(full.getParsingResult());
+		
+		Source lean = new Source(INPUT, "A.java");
+		lean.parseCompilationUnit(new ParseOptions().lean(true));
+		assertNull(lean.getParsingResult());
+		assertEquals(full.getComments().size(), lean.getComments().size());
+		assertEquals("* Docs. ", method(lean).astJavadoc().astContent());
+	}
+	
+	@Test
+	public void testLazyBodiesStillParseAfterTheStateIsDropped() {
+		Source lean = new Source(INPUT, "A.java");
+		lean.parseCompilationUnit(new ParseOptions().lean(true).lazyBodies(true));
+		assertNull(lean.getParsingResult());
+		assertEquals(1, method(lean).astBody().astContents().size());
+		assertNull(lean.getParsingResult());
+		assertEquals(2, lean.getComments().size());
+	}
+	
+	private static MethodDeclaration method(Source source) {
+		ClassDeclaration type = (ClassDeclaration) ((CompilationUnit) source.getNodes().get(0)).astTypeDeclarations().first();
+		return (MethodDeclaration) type.astBody().astMembers().first();
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class LineMapTest {
+	private static final String TEXT = "ab\ncd\r\nef\rg\n\nh";
+	
+	@Test
+	public void testMixedLineTerminators() {
+		LineMap map = new LineMap(TEXT);
+		assertEquals(6, map.getLineCount());
+		assertEquals(Arrays.asList(2, 5, 9, 11, 12), map.getLineEndings());
+		assertArrayEquals(new int[] {2, 6, 9, 11, 12}, map.getLineSeparatorEnds());
+		
+		for (int offset = 0; offset <= TEXT.length(); offset++) {
+			int line = map.lineOf(offset);
+			int column = map.columnOf(offset);
+			assertEquals(offset, map.offsetOf(line, column));
+			assertEquals(countLinesBefore(offset), line);
+		}
+		
+		assertEquals(0, map.lineOf(0));
+		assertEquals(1, map.lineOf(3));
+		assertEquals(2, map.lineOf(7));
+		assertEquals(5, map.lineOf(TEXT.length()));
+		assertEquals(1, map.columnOf(8));
+	}
+	
+	@Test
+	public void testBulkMatchesSingleLookups() {
+		LineMap map = new LineMap(TEXT);
+		int[] offsets = new int[TEXT.length() + 1];
+		for (int i = 0; i < offsets.length; i++) offsets[i] = i;
+		int[] lines = map.linesOf(offsets);
+		for (int i = 0; i < offsets.length; i++) assertEquals(map.lineOf(offsets[i]), lines[i]);
+	}
+	
+	@Test
+	public void testSourceLineColumn() {
+		Source source = new Source(TEXT, "LineMapTest.java");
+		List<Integer> endings = source.getLineEndingsTable();
+		for (int offset = 0; offset <= TEXT.length(); offset++) {
+			int line = 0, from = 0;
+			while (line < endings.size() && endings.get(line) <= offset) from = endings.get(line++);
+			assertEquals((long) line << 32 | offset - from, source.lineColumn(offset));
+		}
+		
+		assertEquals(0L << 32 | 1, source.lineColumn(1));
+		assertEquals(1L << 32 | 1, source.lineColumn(3));
+		assertEquals(2L << 32 | 2, source.lineColumn(7));
+	}
+	
+	@Test
+	public void testEmpty() {
+		LineMap map = new LineMap("");
+		assertEquals(1, map.getLineCount());
+		assertEquals(0, map.lineOf(0));
+		assertTrue(map.getLineEndings().isEmpty());
+	}
+	
+	private static int countLinesBefore(int offset) {
+		int lines = 0;
+		for (int i = 0; i < offset; i++) {
+			char c = TEXT.charAt(i);
+			if (c == '\n' || (c == '\r' && (i + 1 >= TEXT.length() || TEXT.charAt(i + 1) != '\n'))) lines++;
+		}
+		return lines;
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import static org.junit.Assert.*;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class MismatchMemoHitsTest {
+	private static final String RETRIED =
+			"class A {\n" +
+			"\tvoid m() {\n" +
+			"\t\ta = b;\n" +
+			"\t\tc++;\n" +
+			"\t\tx.y(z.w);\n" +
+			"\t\tnew int[1];\n" +
+			"\t}\n" +
+			"}\n";
+	
+	private static final Pattern MEMO_REPORT = Pattern.compile("Memoized mismatches: (\\d+) recorded, (\\d+) rule runs skipped");
+	
+	@Test
+	public void testRetriedRulesAreSkipped() {
+		Source source = new Source(RETRIED, "A.java");
+		source.setOptions(new ParseOptions().memoizeMismatches(true));
+		Matcher m = MEMO_REPORT.matcher(source.getOverviewProfileInformation());
+		
+		assertTrue(m.find());
+		assertTrue(Integer.parseInt(m.group(1)) > 0);
+		assertTrue(Integer.parseInt(m.group(2)) > 0);
+	}
+	
+	@Test
+	public void testSkippedRulesDoNoWork() {
+		Source plain = new Source(RETRIED, "A.java");
+		Source memoized = new Source(RETRIED, "A.java");
+		memoized.setOptions(new ParseOptions().memoizeMismatches(true));
+		
+		assertTrue(totalInvocations(memoized.getRuleProfile()) < totalInvocations(plain.getRuleProfile()));
+		assertEquals(plain.getProblems(), memoized.getProblems());
+	}
+	
+	@Test
+	public void testOffByDefault() {
+		assertFalse(new ParseOptions().isMemoizeMismatches());
+		assertFalse(MEMO_REPORT.matcher(new Source(RETRIED, "A.java").getOverviewProfileInformation()).find());
+	}
+	
+	private static long totalInvocations(RuleProfile profile) {
+		long total = 0;
+		for (RuleProfile.Entry entry : profile.getEntries()) total += entry.getInvocations();
+		return total;
+	}
+}
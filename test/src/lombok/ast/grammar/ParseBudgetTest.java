@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import static lombok.ast.grammar.StructurePrinting.print;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class ParseBudgetTest {
+	private static final String VALID = "package x;\n\npublic class Valid {\n\tint[] a = {1, 2, 3};\n\n\tvoid m(String s) {\n\t\tif (s != null) System.out.println(s + a.length);\n\t}\n}\n";
+	
+	/**
+	 * A method full of unbalanced parentheses: error recovery has to repair every line, re-running the parse each time.
+	 */
+	private static String unbalancedParens(int lines) {
+		StringBuilder sb = new StringBuilder("class Bad {\n\tvoid m() {\n");
+		for (int i = 0; i < lines; i++) sb.append("\t\ta = ((((((((((((((((((((b + c * (d;\n");
+		return sb.append("\t}\n}\n").toString();
+	}
+	
+	@Test
+	public void testBudgetCountsSteps() {
+		ParseBudget budget = ParseBudget.of(new ParseOptions().maxMatcherInvocations(3));
+		budget.step(0);
+		budget.step(1);
+		budget.step(2);
+		try {
+			budget.step(7);
+			fail();
+		} catch (ParseBudget.Exceeded e) {
+			assertEquals(AbortedParseProblem.Reason.MATCHER_INVOCATIONS, e.getReason());
+			assertEquals(7, e.getIndex());
+		}
+	}
+	
+	@Test
+	public void testBudgetSkipsStepsCountedByRunner() {
+		ParseBudget budget = ParseBudget.of(new ParseOptions().maxMatcherInvocations(1));
+		budget.step(0);
+		budget.setCountingEveryMatcher(true);
+		budget.stepUnlessCounted(1);
+		budget.setCountingEveryMatcher(false);
+		try {
+			budget.stepUnlessCounted(2);
+			fail();
+		} catch (ParseBudget.Exceeded e) {
+			assertEquals(2, e.getIndex());
+		}
+	}
+	
+	@Test
+	public void testWhitespaceRunsAreChargedPerToken() {
+		ParseBudget budget = ParseBudget.of(new ParseOptions().maxMatcherInvocations(2 * ParseBudget.STEPS_PER_TOKEN));
+		budget.stepUnlessCounted(0);
+		budget.stepUnlessCounted(1);
+		try {
+			budget.step(2);
+			fail();
+		} catch (ParseBudget.Exceeded e) {
+			assertEquals(2, e.getIndex());
+		}
+	}
+	
+	@Test
+	public void testBudgetChecksTokenPeriodically() {
+		assertNull(ParseBudget.of(new ParseOptions()));
+		CancellationToken token = new CancellationToken();
+		ParseBudget budget = ParseBudget.of(new ParseOptions().cancellationToken(token));
+		token.cancel();
+		try {
+			for (int i = 0; i < ParseBudget.CHECK_INTERVAL; i++) budget.step(i);
+			fail();
+		} catch (ParseBudget.Exceeded e) {
+			assertEquals(AbortedParseProblem.Reason.CANCELLED, e.getReason());
+			assertEquals(ParseBudget.CHECK_INTERVAL - 1, e.getIndex());
+		}
+	}
+	
+	@Test
+	public void testFindDigsThroughWrappers() {
+		ParseBudget.Exceeded exceeded = new ParseBudget.Exceeded(AbortedParseProblem.Reason.DEADLINE, 4);
+		assertSame(exceeded, ParseBudget.Exceeded.find(new RuntimeException(new IllegalStateException(exceeded))));
+		assertNull(ParseBudget.Exceeded.find(new RuntimeException(new IllegalStateException())));
+	}
+	
+	@Test
+	public void testGenerousBudgetChangesNothing() {
+		Source plain = new Source(VALID, "Valid.java");
+		plain.parseCompilationUnit();
+		Source budgeted = new Source(VALID, "Valid.java");
+		budgeted.parseCompilationUnit(new ParseOptions()
+				.maxMatcherInvocations(100000000L)
+				.deadline(System.currentTimeMillis() + 600000)
+				.cancellationToken(new CancellationToken()));
+		
+		assertTrue(budgeted.getProblems().isEmpty());
+		assertEquals(print(plain), print(budgeted));
+	}
+	
+	@Test
+	public void testMatcherInvocationLimit() {
+		Source source = new Source(VALID, "Valid.java");
+		source.parseCompilationUnit(new ParseOptions().maxMatcherInvocations(50));
+		assertAborted(source, AbortedParseProblem.Reason.MATCHER_INVOCATIONS);
+		assertTrue(source.getProblems().get(0).getPosition().getStart() < VALID.length());
+	}
+	
+	@Test
+	public void testLimitRunsOutAtLastMatcherInvocation() {
+		long invocations = 0;
+		for (RuleProfile.Entry entry : new Source(VALID, "Valid.java").getRuleProfile().getEntries()) invocations += entry.getInvocations();
+		
+		Source exact = new Source(VALID, "Valid.java");
+		exact.parseCompilationUnit(new ParseOptions().failFast(true).maxMatcherInvocations(invocations));
+		assertTrue(exact.getProblems().toString(), exact.getProblems().isEmpty());
+		
+		Source oneShort = new Source(VALID, "Valid.java");
+		oneShort.parseCompilationUnit(new ParseOptions().failFast(true).maxMatcherInvocations(invocations - 1));
+		assertAborted(oneShort, AbortedParseProblem.Reason.MATCHER_INVOCATIONS);
+	}
+	
+	@Test
+	public void testCancelledBeforeStart() {
+		CancellationToken token = new CancellationToken();
+		token.cancel();
+		Source source = new Source(VALID, "Valid.java");
+		source.parseCompilationUnit(new ParseOptions().cancellationToken(token));
+		assertAborted(source, AbortedParseProblem.Reason.CANCELLED);
+	}
+	
+	@Test
+	public void testDeadlineInThePast() {
+		Source source = new Source("a + b * c", "snippet");
+		source.parseExpression(new ParseOptions().deadline(1));
+		assertAborted(source, AbortedParseProblem.Reason.DEADLINE);
+	}
+	
+	@Test
+	public void testLimitStopsErrorRecovery() {
+		String input = unbalancedParens(200);
+		Source source = new Source(input, "Bad.java");
+		long start = System.currentTimeMillis();
+		source.parseCompilationUnit(new ParseOptions().maxMatcherInvocations(200000));
+		long taken = System.currentTimeMillis() - start;
+		
+		assertAborted(source, AbortedParseProblem.Reason.MATCHER_INVOCATIONS);
+		assertTrue("Took " + taken + "ms", taken < 30000);
+	}
+	
+	@Test
+	public void testDeadlineStopsErrorRecovery() {
+		Source source = new Source(unbalancedParens(400), "Bad.java");
+		source.parseCompilationUnit(new ParseOptions().deadline(System.currentTimeMillis() + 1));
+		assertAborted(source, AbortedParseProblem.Reason.DEADLINE);
+	}
+	
+	@Test
+	public void testCancelledFromAnotherThread() throws Exception {
+		final CancellationToken token = new CancellationToken();
+		Thread canceller = new Thread() {
+			@Override public void run() {
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException e) {
+					// Cancel right away instead.
+				}
+				token.cancel();
+			}
+		};
+		Source source = new Source(unbalancedParens(400), "Bad.java");
+		canceller.start();
+		source.parseCompilationUnit(new ParseOptions().cancellationToken(token));
+		canceller.join();
+		
+		assertAborted(source, AbortedParseProblem.Reason.CANCELLED);
+	}
+	
+	@Test
+	public void testAbortedParseIsNotCached() {
+		ParseCache cache = new ParseCache(4);
+		Source aborted = new Source(VALID, "Valid.java");
+		aborted.parseCompilationUnit(new ParseOptions().maxMatcherInvocations(50));
+		aborted.clear();
+		cache.parseCompilationUnit(aborted);
+		assertAborted(aborted, AbortedParseProblem.Reason.MATCHER_INVOCATIONS);
+		
+		Source full = new Source(VALID, "Valid.java");
+		cache.parseCompilationUnit(full);
+		assertEquals(0, cache.getHits());
+		assertTrue(full.getProblems().isEmpty());
+	}
+	
+	private static void assertAborted(Source source, AbortedParseProblem.Reason reason) {
+		assertEquals(1, source.getProblems().size());
+		ParseProblem problem = source.getProblems().get(0);
+		assertTrue(problem.toString(), problem instanceof AbortedParseProblem);
+		assertEquals(reason, ((AbortedParseProblem) problem).getReason());
+		assertTrue(source.getNodes().isEmpty());
+	}
+}
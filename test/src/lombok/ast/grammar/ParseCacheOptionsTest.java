@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class ParseCacheOptionsTest {
+	private static final String BROKEN =
+			"class A {\n" +
+			"\tint a = ;\n" +
+			"\tint b = ;\n" +
+			"}\n";
+	
+	private static final String VALID =
+			"class A {\n" +
+			"\tvoid m() {\n" +
+			"\t\tint a = 1;\n" +
+			"\t}\n" +
+			"}\n";
+	
+	@Test
+	public void testFailFastParseIsNotStored() {
+		ParseCache cache = new ParseCache(4);
+		cache.parseCompilationUnit(withOptions(BROKEN, new ParseOptions().failFast(true)));
+		
+		Source full = new Source(BROKEN, "A.java");
+		cache.parseCompilationUnit(full);
+		assertEquals(0, cache.getHits());
+		assertTrue(full.getProblems().size() > 1);
+		assertFalse(full.getNodes().isEmpty());
+	}
+	
+	@Test
+	public void testFailFastParseIsNotServed() {
+		ParseCache cache = new ParseCache(4);
+		cache.parseCompilationUnit(new Source(BROKEN, "A.java"));
+		
+		Source failFast = withOptions(BROKEN, new ParseOptions().failFast(true));
+		cache.parseCompilationUnit(failFast);
+		assertEquals(0, cache.getHits());
+		assertEquals(1, failFast.getProblems().size());
+	}
+	
+	@Test
+	public void testLazyAndLeanParsesBypassTheCache() {
+		ParseCache cache = new ParseCache(4);
+		cache.parseCompilationUnit(withOptions(VALID, new ParseOptions().lazyBodies(true)));
+		cache.parseCompilationUnit(withOptions(VALID, new ParseOptions().lean(true)));
+		cache.parseCompilationUnit(new Source(VALID, "A.java"));
+		assertEquals(0, cache.getHits());
+		
+		cache.parseCompilationUnit(withOptions(VALID, new ParseOptions().lazyBodies(true)));
+		cache.parseCompilationUnit(withOptions(VALID, new ParseOptions().lean(true)));
+		assertEquals(0, cache.getHits());
+		assertEquals(5, cache.getMisses());
+	}
+	
+	@Test
+	public void testDefaultParseIsServed() {
+		ParseCache cache = new ParseCache(4);
+		cache.parseCompilationUnit(new Source(VALID, "A.java"));
+		cache.parseCompilationUnit(withOptions(VALID, new ParseOptions().memoizeMismatches(true).precedenceClimbing(true)));
+		assertEquals(1, cache.getHits());
+	}
+	
+	private static Source withOptions(String input, ParseOptions options) {
+		Source source = new Source(input, "A.java");
+		source.setOptions(options);
+		return source;
+	}
+}
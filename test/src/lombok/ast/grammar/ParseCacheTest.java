@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+
+import lombok.ast.Comment;
+import lombok.ast.Node;
+import lombok.ast.grammar.RunForEachFileInDirRunner.DirDescriptor;
+import lombok.ast.printer.SourcePrinter;
+import lombok.ast.printer.StructureFormatter;
+import lombok.ast.printer.TextFormatter;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.google.common.io.Files;
+
+@RunWith(RunForEachFileInDirRunner.class)
+public class ParseCacheTest extends RunForEachFileInDirRunner.SourceFileBasedTester {
+	@Override
+	protected Collection<DirDescriptor> getDirDescriptors() {
+		return Collections.singleton(DirDescriptor.of(new File("test/resources/idempotency"), true));
+	}
+	
+	@Test
+	public void testMemoryHitMatchesParse(Source source) {
+		ParseCache cache = new ParseCache(4);
+		Source first = new Source(source.getRawInput(), source.getName());
+		cache.parseCompilationUnit(first);
+		Source second = new Source(source.getRawInput(), source.getName());
+		cache.parseCompilationUnit(second);
+		
+		assertEquals(1, cache.getMisses());
+		assertEquals(1, cache.getHits());
+		assertRestoredEquals(first, second);
+	}
+	
+	@Test
+	public void testDiskHitMatchesParse(Source source) throws Exception {
+		File dir = Files.createTempDir();
+		try {
+			Source first = new Source(source.getRawInput(), source.getName());
+			new ParseCache(0, dir).parseCompilationUnit(first);
+			
+			ParseCache cache = new ParseCache(0, dir);
+			Source second = new Source(source.getRawInput(), source.getName());
+			cache.parseCompilationUnit(second);
+			
+			assertEquals(1, cache.getHits());
+			assertRestoredEquals(first, second);
+		} finally {
+			for (File f : dir.listFiles()) f.delete();
+			dir.delete();
+		}
+	}
+	
+	private static void assertRestoredEquals(Source parsed, Source restored) {
+		assertEquals(print(parsed, true), print(restored, true));
+		assertEquals(print(parsed, false), print(restored, false));
+		assertEquals(parsed.getProblems(), restored.getProblems());
+		assertEquals(parsed.getComments().size(), restored.getComments().size());
+		for (int i = 0; i < parsed.getComments().size(); i++) {
+			Comment a = parsed.getComments().get(i), b = restored.getComments().get(i);
+			assertEquals(a.getPosition(), b.getPosition());
+			assertEquals(a.astContent(), b.astContent());
+			assertEquals(a.getParent() == null, b.getParent() == null);
+		}
+	}
+	
+	private static String print(Source source, boolean structure) {
+		if (structure) {
+			StructureFormatter formatter = StructureFormatter.formatterWithPositions();
+			for (Node node : source.getNodes()) node.accept(new SourcePrinter(formatter));
+			return formatter.finish();
+		}
+		TextFormatter formatter = new TextFormatter();
+		for (Node node : source.getNodes()) node.accept(new SourcePrinter(formatter));
+		return formatter.finish();
+	}
+}
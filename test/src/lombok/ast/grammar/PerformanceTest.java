@@ -21,6 +21,7 @@
  */
 package lombok.ast.grammar;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
 import java.io.BufferedWriter;
@@ -29,10 +30,19 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.lang.management.ManagementFactory;
 import java.util.Collection;
 import java.util.List;
 
 import lombok.Cleanup;
+import lombok.ast.EmptyDeclaration;
+import lombok.ast.ForwardingAstVisitor;
+import lombok.ast.Identifier;
+import lombok.ast.MethodInvocation;
+import lombok.ast.Node;
+import lombok.ast.NormalTypeBody;
+import lombok.ast.TypeReferencePart;
+import lombok.ast.VariableReference;
 import lombok.ast.grammar.RunForEachFileInDirRunner.DirDescriptor;
 
 import org.eclipse.jdt.internal.compiler.CompilationResult;
@@ -49,6 +59,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.parboiled.Parboiled;
 import org.parboiled.ReportingParseRunner;
+import org.parboiled.support.ParseTreeUtils;
 
 import com.google.common.collect.Lists;
 import com.sun.tools.javac.main.JavaCompiler;
@@ -61,6 +72,17 @@ public class PerformanceTest extends RunForEachFileInDirRunner.SourceFileBasedTe
 	private static final boolean EXTENDED = System.getProperty("lombok.ast.test.extended") != null;
 	private static final double MAX_FACTOR = 15;
 	private static long javacTotal, lombokTotal, ecjTotal, parboiledTotal;
+	private static long pooledTotal, unpooledTotal;
+	private static long lazyTotal, fullTotal;
+	private static long escapedTotal, unescapedTotal;
+	private static long leanHeapTotal, retainingHeapTotal;
+	private static long cacheHitTotal, reparseTotal;
+	private static long memoizedTotal, unmemoizedTotal;
+	private static long climbingTotal, levelsTotal;
+	private static long compiledPathTotal, stringPathTotal;
+	private static long allocatedCharsTotal, parseBytesTotal, rangeBytesTotal, positionBytesTotal;
+	private static long copyWalkBytesTotal, viewWalkBytesTotal, indexWalkBytesTotal;
+	private static long copyWalkTotal, indexWalkTotal;
 	
 	@BeforeClass
 	public void init() {
@@ -79,6 +101,38 @@ public class PerformanceTest extends RunForEachFileInDirRunner.SourceFileBasedTe
 					javacTotal, (double)lombokTotal / javacTotal,
 					ecjTotal, (double)lombokTotal / ecjTotal, (double)ecjTotal / javacTotal,
 					parboiledTotal, (double)lombokTotal / parboiledTotal, (double)parboiledTotal / javacTotal);
+			System.out.printf("[%20s / %30s] pooled: %5d unpooled: %5d [%6.02f]\n",
+					"", "*** PARSERGROUP POOLING ***",
+					pooledTotal, unpooledTotal, (double)unpooledTotal / pooledTotal);
+			System.out.printf("[%20s / %30s] lazy: %5d full: %5d [%6.02f]\n",
+					"", "*** LAZY BODIES ***",
+					lazyTotal, fullTotal, (double)fullTotal / lazyTotal);
+			System.out.printf("[%20s / %30s] escaped: %5d plain: %5d [%6.02f]\n",
+					"", "*** BACKSLASH-U ESCAPES ***",
+					escapedTotal, unescapedTotal, (double)escapedTotal / unescapedTotal);
+			System.out.printf("[%20s / %30s] lean: %5dK retaining: %5dK [%6.02f]\n",
+					"", "*** RETAINED HEAP ***",
+					leanHeapTotal / 1024, retainingHeapTotal / 1024, (double)retainingHeapTotal / leanHeapTotal);
+			System.out.printf("[%20s / %30s] cached: %5d reparse: %5d [%6.02f]\n",
+					"", "*** PARSE CACHE ***",
+					cacheHitTotal, reparseTotal, (double)reparseTotal / cacheHitTotal);
+			System.out.printf("[%20s / %30s] memoized: %5d plain: %5d [%6.02f]\n",
+					"", "*** MISMATCH MEMOIZATION ***",
+					memoizedTotal, unmemoizedTotal, (double)unmemoizedTotal / memoizedTotal);
+			System.out.printf("[%20s / %30s] climbing: %5d levels: %5d [%6.02f]\n",
+					"", "*** PRECEDENCE CLIMBING ***",
+					climbingTotal, levelsTotal, (double)levelsTotal / climbingTotal);
+			System.out.printf("[%20s / %30s] compiled: %5d string: %5d [%6.02f]\n",
+					"", "*** LABEL PATH LOOKUPS ***",
+					compiledPathTotal, stringPathTotal, (double)stringPathTotal / compiledPathTotal);
+			double kb = Math.max(1, allocatedCharsTotal) / 1024.0;
+			System.out.printf("[%20s / %30s] parse: %8.0f B/KB ranges: %6.0f B/KB positions: %6.0f B/KB\n",
+					"", "*** ALLOCATION ***",
+					parseBytesTotal / kb, rangeBytesTotal / kb, positionBytesTotal / kb);
+			System.out.printf("[%20s / %30s] copied: %5dK view: %5dK indexed: %5dK time copied: %5d indexed: %5d [%6.02f]\n",
+					"", "*** CHILD TRAVERSAL ***",
+					copyWalkBytesTotal / 1024, viewWalkBytesTotal / 1024, indexWalkBytesTotal / 1024,
+					copyWalkTotal, indexWalkTotal, (double)copyWalkTotal / indexWalkTotal);
 		}
 	}
 	
@@ -170,6 +224,12 @@ public class PerformanceTest extends RunForEachFileInDirRunner.SourceFileBasedTe
 					out.close();
 					rawOut.close();
 					System.out.println("Profile report written to: " + reportFile.getCanonicalPath());
+					File rulesFile = new File("test/reports/" + fileName + ".rules.csv");
+					@Cleanup FileOutputStream rawRulesOut = new FileOutputStream(rulesFile);
+					Writer rulesOut = new BufferedWriter(new OutputStreamWriter(rawRulesOut, "UTF-8"));
+					source.getRuleProfile().writeCsv(rulesOut);
+					rulesOut.close();
+					System.out.println("Rule profile written to: " + rulesFile.getCanonicalPath());
 				} catch (IOException e) {
 					System.err.println("I/O error writing profile report on " + source.getName() + "; Possibly ./test/reports is not writable?");
 					e.printStackTrace();
@@ -181,6 +241,480 @@ public class PerformanceTest extends RunForEachFileInDirRunner.SourceFileBasedTe
 		return true;
 	}
 	
+	/**
+	 * Compares parsing with the per-thread {@code ParserGroup} (the default) against building a fresh group (all six parsers and their rule graphs) for every parse.
+	 */
+	@Test
+	public boolean testParserGroupPooling(Source source) {
+		if (!EXTENDED) return false;
+		source.parseCompilationUnit();
+		long takenPooled = System.currentTimeMillis();
+		for (int i = 0; i < REPS; i++) {
+			source.clear();
+			source.parseCompilationUnit();
+		}
+		takenPooled = System.currentTimeMillis() - takenPooled;
+		pooledTotal += takenPooled;
+		
+		long takenUnpooled = System.currentTimeMillis();
+		for (int i = 0; i < REPS; i++) {
+			new ParserGroup(source).structures.compilationUnitEoi();
+			source.clear();
+			source.parseCompilationUnit();
+		}
+		takenUnpooled = System.currentTimeMillis() - takenUnpooled;
+		unpooledTotal += takenUnpooled;
+		
+		if (VERBOSE) {
+			System.out.printf("[%s] pooled: %5d unpooled: %5d [%6.02f]\n",
+					source.getName(), takenPooled, takenUnpooled, (double)takenUnpooled / Math.max(1, takenPooled));
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Compares a structural parse that skips method bodies against a full parse.
+	 */
+	@Test
+	public boolean testLazyBodies(Source source) {
+		if (!EXTENDED) return false;
+		Source lazy = new Source(source.getRawInput(), source.getName());
+		lazy.parseCompilationUnit(new ParseOptions().lazyBodies(true));
+		long takenLazy = System.currentTimeMillis();
+		for (int i = 0; i < REPS; i++) {
+			lazy.clear();
+			lazy.parseCompilationUnit();
+		}
+		takenLazy = System.currentTimeMillis() - takenLazy;
+		lazyTotal += takenLazy;
+		
+		source.parseCompilationUnit();
+		long takenFull = System.currentTimeMillis();
+		for (int i = 0; i < REPS; i++) {
+			source.clear();
+			source.parseCompilationUnit();
+		}
+		takenFull = System.currentTimeMillis() - takenFull;
+		fullTotal += takenFull;
+		
+		if (VERBOSE) {
+			System.out.printf("[%s] lazy: %5d full: %5d [%6.02f]\n",
+					source.getName(), takenLazy, takenFull, (double)takenFull / Math.max(1, takenLazy));
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Parses a synthetic copy of the source with every letter written as a backslash-u escape, which stresses mapping positions back to the raw input.
+	 */
+	@Test
+	public boolean testEscapeHeavy(Source source) {
+		if (!EXTENDED) return false;
+		String raw = source.getRawInput();
+		if (raw.indexOf("\\u") != -1) return false;
+		
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < raw.length(); i++) {
+			char c = raw.charAt(i);
+			boolean letter = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+			if (letter && (i == 0 || raw.charAt(i - 1) != '\\')) sb.append(String.format("\\u%04x", (int) c));
+			else sb.append(c);
+		}
+		Source escaped = new Source(sb.toString(), source.getName());
+		
+		escaped.parseCompilationUnit();
+		long takenEscaped = System.currentTimeMillis();
+		for (int i = 0; i < REPS; i++) {
+			escaped.clear();
+			escaped.parseCompilationUnit();
+			escaped.getSourceStructures();
+		}
+		takenEscaped = System.currentTimeMillis() - takenEscaped;
+		escapedTotal += takenEscaped;
+		
+		source.parseCompilationUnit();
+		long takenUnescaped = System.currentTimeMillis();
+		for (int i = 0; i < REPS; i++) {
+			source.clear();
+			source.parseCompilationUnit();
+			source.getSourceStructures();
+		}
+		takenUnescaped = System.currentTimeMillis() - takenUnescaped;
+		unescapedTotal += takenUnescaped;
+		
+		if (VERBOSE) {
+			System.out.printf("[%s] escaped: %5d plain: %5d [%6.02f]\n",
+					source.getName(), takenEscaped, takenUnescaped, (double)takenEscaped / Math.max(1, takenUnescaped));
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Estimates the heap kept alive by {@code REPS} parsed copies of the source, with and without lean mode.
+	 */
+	@Test
+	public boolean testLeanRetainedHeap(Source source) {
+		if (!EXTENDED) return false;
+		long retaining = retainedHeap(source, new ParseOptions());
+		long lean = retainedHeap(source, new ParseOptions().lean(true));
+		retainingHeapTotal += retaining;
+		leanHeapTotal += lean;
+		
+		if (VERBOSE) {
+			System.out.printf("[%s] lean: %5dK retaining: %5dK [%6.02f]\n",
+					source.getName(), lean / 1024, retaining / 1024, (double)retaining / Math.max(1, lean));
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Compares restoring a source from a warm {@link ParseCache} against parsing it again.
+	 */
+	@Test
+	public boolean testParseCache(Source source) {
+		if (!EXTENDED) return false;
+		ParseCache cache = new ParseCache(1);
+		cache.parseCompilationUnit(new Source(source.getRawInput(), source.getName()));
+		long takenCached = System.currentTimeMillis();
+		for (int i = 0; i < REPS; i++) {
+			cache.parseCompilationUnit(new Source(source.getRawInput(), source.getName()));
+		}
+		takenCached = System.currentTimeMillis() - takenCached;
+		cacheHitTotal += takenCached;
+		
+		long takenReparse = System.currentTimeMillis();
+		for (int i = 0; i < REPS; i++) {
+			source.clear();
+			source.parseCompilationUnit();
+		}
+		takenReparse = System.currentTimeMillis() - takenReparse;
+		reparseTotal += takenReparse;
+		
+		if (VERBOSE) {
+			System.out.printf("[%s] cached: %5d reparse: %5d [%6.02f] hits: %d\n",
+					source.getName(), takenCached, takenReparse, (double)takenReparse / Math.max(1, takenCached), cache.getHits());
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Compares parsing with the mismatches of the memoizing grammar rules remembered against parsing without.
+	 */
+	@Test
+	public boolean testMismatchMemo(Source source) {
+		if (!EXTENDED) return false;
+		long takenMemoized = timeParses(source, new ParseOptions().memoizeMismatches(true));
+		memoizedTotal += takenMemoized;
+		long takenUnmemoized = timeParses(source, new ParseOptions().memoizeMismatches(false));
+		unmemoizedTotal += takenUnmemoized;
+		
+		if (VERBOSE) {
+			System.out.printf("[%s] memoized: %5d plain: %5d [%6.02f]\n",
+					source.getName(), takenMemoized, takenUnmemoized, (double)takenUnmemoized / Math.max(1, takenMemoized));
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Compares parsing binary expressions as a flat chain arranged by precedence against parsing them with a rule per precedence level (the default).
+	 */
+	@Test
+	public boolean testPrecedenceClimbing(Source source) {
+		if (!EXTENDED) return false;
+		long takenClimbing = timeParses(source, new ParseOptions().precedenceClimbing(true));
+		climbingTotal += takenClimbing;
+		long takenLevels = timeParses(source, new ParseOptions().precedenceClimbing(false));
+		levelsTotal += takenLevels;
+		
+		if (VERBOSE) {
+			System.out.printf("[%s] climbing: %5d levels: %5d [%6.02f]\n",
+					source.getName(), takenClimbing, takenLevels, (double)takenLevels / Math.max(1, takenClimbing));
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Compares resolving the label paths used by the grammar actions with {@link LabelPath} against parboiled's string paths, by looking up every
+	 * path underneath every node of the source's parse tree.
+	 */
+	@Test
+	public boolean testLabelPaths(Source source) {
+		if (!EXTENDED) return false;
+		source.parseCompilationUnit();
+		List<List<org.parboiled.Node<Node>>> subNodeLists = Lists.newArrayList();
+		collectSubNodeLists(source.getParsingResult().parseTreeRoot, subNodeLists);
+		List<LabelPath> paths = Lists.newArrayList(LabelPath.compiled());
+		
+		int found = 0;
+		long takenCompiled = System.currentTimeMillis();
+		for (int i = 0; i < REPS; i++) {
+			for (List<org.parboiled.Node<Node>> subNodes : subNodeLists) {
+				for (LabelPath path : paths) {
+					if (path.node(subNodes) != null) found++;
+					found += path.nodes(subNodes).size();
+				}
+			}
+		}
+		takenCompiled = System.currentTimeMillis() - takenCompiled;
+		compiledPathTotal += takenCompiled;
+		
+		long takenString = System.currentTimeMillis();
+		for (int i = 0; i < REPS; i++) {
+			for (List<org.parboiled.Node<Node>> subNodes : subNodeLists) {
+				for (LabelPath path : paths) {
+					if (ParseTreeUtils.findNodeByPath(subNodes, path.getPath()) != null) found--;
+					found -= ParseTreeUtils.collectNodesByPath(subNodes, path.getPath(), Lists.<org.parboiled.Node<Node>>newArrayList()).size();
+				}
+			}
+		}
+		takenString = System.currentTimeMillis() - takenString;
+		stringPathTotal += takenString;
+		assertEquals(0, found);
+		
+		if (VERBOSE) {
+			System.out.printf("[%s] compiled: %5d string: %5d [%6.02f]\n",
+					source.getName(), takenCompiled, takenString, (double)takenString / Math.max(1, takenCompiled));
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Measures how many bytes get allocated per KB of source by parsing it, and by reading the position of every node afterwards;
+	 * once with {@code getStart()}/{@code getEnd()} and once with {@code getPosition()}.
+	 */
+	@Test
+	public boolean testAllocation(Source source) {
+		if (!EXTENDED || allocatedBytes() == -1) return false;
+		Source copy = new Source(source.getRawInput(), source.getName());
+		copy.parseCompilationUnit();
+		long before = allocatedBytes();
+		for (int i = 0; i < REPS; i++) {
+			copy.clear();
+			copy.parseCompilationUnit();
+		}
+		long parsing = (allocatedBytes() - before) / REPS;
+		
+		final long[] sums = new long[2];
+		before = allocatedBytes();
+		for (Node node : copy.getNodes()) node.accept(new ForwardingAstVisitor() {
+			@Override public boolean visitNode(Node node) {
+				sums[0] += node.getEnd() - node.getStart();
+				return false;
+			}
+		});
+		long ranges = allocatedBytes() - before;
+		
+		before = allocatedBytes();
+		for (Node node : copy.getNodes()) node.accept(new ForwardingAstVisitor() {
+			@Override public boolean visitNode(Node node) {
+				sums[1] += node.getPosition().size();
+				return false;
+			}
+		});
+		long positions = allocatedBytes() - before;
+		assertEquals(sums[0], sums[1]);
+		
+		allocatedCharsTotal += source.getRawInput().length();
+		parseBytesTotal += parsing;
+		rangeBytesTotal += ranges;
+		positionBytesTotal += positions;
+		
+		if (VERBOSE) {
+			double kb = Math.max(1, source.getRawInput().length()) / 1024.0;
+			System.out.printf("[%s] parse: %8.0f B/KB ranges: %6.0f B/KB positions: %6.0f B/KB\n",
+					source.getName(), parsing / kb, ranges / kb, positions / kb);
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Walks the whole tree through its children: by copying {@code getChildren()} into a fresh list per node as it used to be generated,
+	 * by iterating the {@code getChildren()} view, and with {@code childCount()}/{@code childAt(int)}. Reports the bytes allocated by each
+	 * walk and the time taken for {@code REPS} copying and indexed walks.
+	 */
+	@Test
+	public boolean testChildTraversal(Source source) {
+		if (!EXTENDED || allocatedBytes() == -1) return false;
+		Source copy = new Source(source.getRawInput(), source.getName());
+		copy.parseCompilationUnit();
+		Node root = copy.getNodes().get(0);
+		long expected = indexWalk(root);
+		
+		long before = allocatedBytes();
+		assertEquals(expected, copyWalk(root));
+		long copied = allocatedBytes() - before;
+		before = allocatedBytes();
+		assertEquals(expected, viewWalk(root));
+		long viewed = allocatedBytes() - before;
+		before = allocatedBytes();
+		assertEquals(expected, indexWalk(root));
+		long indexed = allocatedBytes() - before;
+		copyWalkBytesTotal += copied;
+		viewWalkBytesTotal += viewed;
+		indexWalkBytesTotal += indexed;
+		
+		long takenCopied = System.currentTimeMillis();
+		for (int i = 0; i < REPS; i++) copyWalk(root);
+		takenCopied = System.currentTimeMillis() - takenCopied;
+		copyWalkTotal += takenCopied;
+		long takenIndexed = System.currentTimeMillis();
+		for (int i = 0; i < REPS; i++) indexWalk(root);
+		takenIndexed = System.currentTimeMillis() - takenIndexed;
+		indexWalkTotal += takenIndexed;
+		
+		if (VERBOSE) {
+			System.out.printf("[%s] nodes: %6d copied: %7dB view: %7dB indexed: %7dB time copied: %5d indexed: %5d [%6.02f]\n",
+					source.getName(), expected, copied, viewed, indexed,
+					takenCopied, takenIndexed, (double)takenCopied / Math.max(1, takenIndexed));
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Reports the retained heap per instance of the most common node types, including the list accessors they own.
+	 */
+	@Test
+	public void testBytesPerNode() throws Exception {
+		if (!EXTENDED) return;
+		Class<?>[] types = {Identifier.class, VariableReference.class, TypeReferencePart.class, MethodInvocation.class};
+		int count = 100000;
+		for (Class<?> type : types) {
+			Object[] kept = new Object[count];
+			long before = usedHeap();
+			for (int i = 0; i < count; i++) kept[i] = type.newInstance();
+			long after = usedHeap();
+			if (kept[count - 1] == null) throw new AssertionError();
+			
+			if (VERBOSE) {
+				System.out.printf("[%20s / %30s] %6.01f bytes per node\n",
+						"", type.getSimpleName(), (double)(after - before) / count);
+			}
+		}
+	}
+	
+	/**
+	 * Inserts 10,000 members into a type body: each one after the member added before it, each one in front of the same member,
+	 * and all of them in one {@code addAll} call.
+	 */
+	@Test
+	public void testMemberInsertion() {
+		if (!EXTENDED) return;
+		int count = 10000;
+		for (int round = 0; round < 3; round++) {
+			NormalTypeBody body = typeBodyWithMembers(100);
+			long takenChained = System.nanoTime();
+			Node previous = body.rawMembers().first();
+			for (int i = 0; i < count; i++) {
+				Node member = new EmptyDeclaration();
+				body.rawMembers().addAfter(previous, member);
+				previous = member;
+			}
+			takenChained = System.nanoTime() - takenChained;
+			assertEquals(count + 100, body.rawMembers().size());
+			
+			body = typeBodyWithMembers(100);
+			long takenAnchored = System.nanoTime();
+			Node anchor = body.rawMembers().first();
+			for (int i = 0; i < count; i++) body.rawMembers().addBefore(anchor, new EmptyDeclaration());
+			takenAnchored = System.nanoTime() - takenAnchored;
+			assertEquals(count + 100, body.rawMembers().size());
+			
+			body = typeBodyWithMembers(100);
+			Node[] members = new Node[count];
+			for (int i = 0; i < count; i++) members[i] = new EmptyDeclaration();
+			long takenBulk = System.nanoTime();
+			body.rawMembers().addAll(1, members);
+			takenBulk = System.nanoTime() - takenBulk;
+			assertEquals(count + 100, body.rawMembers().size());
+			
+			if (VERBOSE && round == 2) {
+				System.out.printf("[%20s / %30s] chained: %5dus anchored: %5dus bulk: %5dus\n",
+						"", "*** INSERTING 10K MEMBERS ***",
+						takenChained / 1000, takenAnchored / 1000, takenBulk / 1000);
+			}
+		}
+	}
+	
+	private static NormalTypeBody typeBodyWithMembers(int count) {
+		NormalTypeBody body = new NormalTypeBody();
+		for (int i = 0; i < count; i++) body.rawMembers().addToEnd(new EmptyDeclaration());
+		return body;
+	}
+	
+	private static long copyWalk(Node node) {
+		long count = 1;
+		for (Node child : Lists.newArrayList(node.getChildren())) count += copyWalk(child);
+		return count;
+	}
+	
+	private static long viewWalk(Node node) {
+		long count = 1;
+		for (Node child : node.getChildren()) count += viewWalk(child);
+		return count;
+	}
+	
+	private static long indexWalk(Node node) {
+		long count = 1;
+		for (int i = 0, size = node.childCount(); i < size; i++) count += indexWalk(node.childAt(i));
+		return count;
+	}
+	
+	/**
+	 * Returns the number of bytes allocated so far by the current thread, or -1 if the JVM can't tell.
+	 */
+	private static long allocatedBytes() {
+		if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) return -1;
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) return -1;
+		return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+	
+	private static void collectSubNodeLists(org.parboiled.Node<Node> node, List<List<org.parboiled.Node<Node>>> out) {
+		if (node == null || node.getChildren() == null || node.getChildren().isEmpty()) return;
+		out.add(node.getChildren());
+		for (org.parboiled.Node<Node> child : node.getChildren()) collectSubNodeLists(child, out);
+	}
+	
+	private static long timeParses(Source source, ParseOptions options) {
+		Source copy = new Source(source.getRawInput(), source.getName());
+		copy.parseCompilationUnit(options);
+		long taken = System.currentTimeMillis();
+		for (int i = 0; i < REPS; i++) {
+			copy.clear();
+			copy.parseCompilationUnit(options);
+		}
+		return System.currentTimeMillis() - taken;
+	}
+	
+	private static long retainedHeap(Source source, ParseOptions options) {
+		List<Source> kept = Lists.newArrayList();
+		long before = usedHeap();
+		for (int i = 0; i < REPS; i++) {
+			Source copy = new Source(source.getRawInput(), source.getName());
+			copy.parseCompilationUnit(options);
+			kept.add(copy);
+		}
+		long after = usedHeap();
+		if (kept.size() != REPS) throw new AssertionError();
+		return Math.max(0, after - before) / REPS;
+	}
+	
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 4; i++) System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+	
 	private void parseWithParboiled(Source source) {
 		if (VERBOSE) {
 			ParboiledJavaGrammar parser = Parboiled.createParser(ParboiledJavaGrammar.class);
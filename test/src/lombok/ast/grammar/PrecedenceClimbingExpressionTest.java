@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import static lombok.ast.grammar.StructurePrinting.print;
+import static org.junit.Assert.*;
+
+import lombok.ast.BinaryExpression;
+import lombok.ast.BinaryOperator;
+import lombok.ast.ForwardingAstVisitor;
+
+import org.junit.Test;
+
+public class PrecedenceClimbingExpressionTest {
+	private static final String[] EXPRESSIONS = {
+		"a + b * c - d / e % f",
+		"a << b >>> c < d + e == f",
+		"a & b | c ^ d && e || f ^^ g",
+		"a instanceof A",
+		"a < b instanceof A == c instanceof B && d",
+		"(a + b) * -c++ + (int) d",
+		"a ? b + c : d || e ? f : g",
+		"x = a += b - c * d",
+		"a === b !== c",
+		"a &= b | c",
+		"a + /* comment */ b // comment\n * c",
+	};
+	
+	/**
+	 * Legal java, but the grammar rules per precedence level don't take anything after an {@code instanceof} that binds as tightly.
+	 */
+	private static final String[] REJECTED_EXPRESSIONS = {
+		"a instanceof A < b",
+		"a instanceof A instanceof B",
+		"a instanceof A + b",
+	};
+	
+	@Test
+	public void testExpressions() {
+		for (String expression : EXPRESSIONS) {
+			Source levels = parse(expression, false);
+			Source climbing = parse(expression, true);
+			
+			assertEquals(expression, print(levels), print(climbing));
+			assertEquals(expression, levels.getProblems(), climbing.getProblems());
+		}
+	}
+	
+	@Test
+	public void testRejectedExpressions() {
+		for (String expression : REJECTED_EXPRESSIONS) {
+			assertFalse(expression, parse(expression, false).getProblems().isEmpty());
+			assertFalse(expression, parse(expression, true).getProblems().isEmpty());
+		}
+	}
+	
+	@Test
+	public void testClimbingBindsTighterOperatorsFirst() {
+		BinaryExpression root = rootOf(parse("a + b * c", true));
+		assertEquals(BinaryOperator.PLUS, root.astOperator());
+		assertEquals(BinaryOperator.MULTIPLY, ((BinaryExpression) root.astRight()).astOperator());
+	}
+	
+	@Test
+	public void testClimbingGroupsSameLevelToTheLeft() {
+		BinaryExpression root = rootOf(parse("a - b - c", true));
+		assertEquals(BinaryOperator.MINUS, root.astOperator());
+		assertEquals(BinaryOperator.MINUS, ((BinaryExpression) root.astLeft()).astOperator());
+		assertFalse(root.astRight() instanceof BinaryExpression);
+	}
+	
+	@Test
+	public void testClimbingGroupsAssignmentsToTheRight() {
+		BinaryExpression root = rootOf(parse("x = y += z", true));
+		assertEquals(BinaryOperator.ASSIGN, root.astOperator());
+		assertEquals(BinaryOperator.PLUS_ASSIGN, ((BinaryExpression) root.astRight()).astOperator());
+		assertFalse(root.astLeft() instanceof BinaryExpression);
+	}
+	
+	private static BinaryExpression rootOf(Source source) {
+		assertTrue(source.getProblems().toString(), source.getProblems().isEmpty());
+		final BinaryExpression[] root = new BinaryExpression[1];
+		source.getNodes().get(0).accept(new ForwardingAstVisitor() {
+			@Override public boolean visitBinaryExpression(BinaryExpression node) {
+				if (root[0] == null) root[0] = node;
+				return true;
+			}
+		});
+		assertNotNull(root[0]);
+		return root[0];
+	}
+	
+	private static Source parse(String expression, boolean precedenceClimbing) {
+		Source source = new Source("class Test {\n\tObject o = " + expression + ";\n}\n", "Test.java");
+		source.parseCompilationUnit(new ParseOptions().precedenceClimbing(precedenceClimbing));
+		return source;
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class RuleProfileReportTest {
+	@Test
+	public void testRootRuleIsCountedOnce() {
+		String input = "class A {\n\tint a = 1;\n}\n";
+		RuleProfile profile = new Source(input, "A.java").getRuleProfile();
+		RuleProfile.Entry root = profile.getEntry("compilationUnitEoi");
+		
+		assertNotNull(root);
+		assertEquals(1, root.getInvocations());
+		assertEquals(1, root.getSuccesses());
+		assertEquals(input.length(), root.getCharsConsumed());
+		assertEquals(0, root.getCharsBacktracked());
+	}
+	
+	@Test
+	public void testMerge() {
+		RuleProfile a = new RuleProfile();
+		a.entry("ws").add(10, 4, 7, 0, 100);
+		RuleProfile b = new RuleProfile();
+		b.entry("ws").add(5, 5, 3, 0, 50);
+		b.entry("Identifier").add(2, 1, 3, 2, 400);
+		
+		a.merge(b);
+		assertEquals(15, a.getEntry("ws").getInvocations());
+		assertEquals(6, a.getEntry("ws").getFailures());
+		assertEquals(10, a.getEntry("ws").getCharsConsumed());
+		assertEquals(150, a.getEntry("ws").getNanos());
+		assertEquals("Identifier", a.getEntries().get(0).getLabel());
+		assertEquals(5, b.getEntry("ws").getInvocations());
+	}
+	
+	@Test
+	public void testCsv() {
+		RuleProfile profile = new RuleProfile();
+		profile.entry("','").add(3, 1, 1, 2, 20);
+		profile.entry("\"class\"").add(1, 1, 5, 0, 10);
+		
+		assertEquals(
+				"rule,invocations,successes,failures,charsConsumed,charsBacktracked,nanos\n" +
+				"\"','\",3,1,2,1,2,20\n" +
+				"\"\"\"class\"\"\",1,1,0,5,0,10\n",
+				profile.toCsv());
+	}
+	
+	@Test
+	public void testJson() {
+		RuleProfile profile = new RuleProfile();
+		assertEquals("[\n]\n", profile.toJson());
+		
+		profile.entry("\"\\\"").add(2, 1, 1, 0, 5);
+		assertEquals(
+				"[\n" +
+				"{\"rule\": \"\\\"\\\\\\\"\", \"invocations\": 2, \"successes\": 1, \"failures\": 1, \"charsConsumed\": 1, \"charsBacktracked\": 0, \"nanos\": 5}\n" +
+				"]\n",
+				profile.toJson());
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import static lombok.ast.grammar.StructurePrinting.print;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+
+import lombok.ast.grammar.RunForEachFileInDirRunner.DirDescriptor;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.google.common.collect.Lists;
+
+@RunWith(RunForEachFileInDirRunner.class)
+public class RuleProfileTest extends RunForEachFileInDirRunner.SourceFileBasedTester {
+	@Override
+	protected Collection<DirDescriptor> getDirDescriptors() {
+		List<DirDescriptor> descriptors = Lists.newArrayList();
+		descriptors.add(DirDescriptor.of(new File("test/resources/idempotency"), true));
+		return descriptors;
+	}
+	
+	@Test
+	public void testProfiledParseMatchesPlainParse(Source source) {
+		Source plain = new Source(source.getRawInput(), source.getName());
+		plain.parseCompilationUnit();
+		RuleProfile profile = source.getRuleProfile();
+		
+		assertEquals(print(plain), print(source));
+		assertEquals(plain.getProblems(), source.getProblems());
+		assertFalse(profile.getEntries().isEmpty());
+		for (RuleProfile.Entry entry : profile.getEntries()) {
+			assertTrue(entry.getLabel(), entry.getSuccesses() <= entry.getInvocations());
+			assertTrue(entry.getLabel(), entry.getCharsConsumed() >= 0 && entry.getCharsBacktracked() >= 0);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import static lombok.ast.grammar.StructurePrinting.print;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+import lombok.ast.ForwardingAstVisitor;
+import lombok.ast.Identifier;
+import lombok.ast.Node;
+
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
+
+public class SourceBatchTest {
+	@Test
+	public void testParallelMatchesSequential() throws Exception {
+		SourceBatch batch = new SourceBatch();
+		File[] files = new File("test/resources/idempotency").listFiles();
+		for (File f : files) {
+			if (f.getName().endsWith(".java")) batch.add(f, Charsets.UTF_8);
+		}
+		
+		List<Source> parsed = batch.parse(4);
+		assertEquals(batch.getSources().size(), parsed.size());
+		
+		for (int i = 0; i < parsed.size(); i++) {
+			Source inParallel = parsed.get(i);
+			assertSame(batch.getSources().get(i), inParallel);
+			Source sequential = new Source(inParallel.getRawInput(), inParallel.getName());
+			sequential.parseCompilationUnit();
+			
+			assertEquals(inParallel.getName(), sequential.getProblems(), inParallel.getProblems());
+			assertEquals(inParallel.getName(), print(sequential), print(inParallel));
+		}
+	}
+	
+	@Test
+	public void testSharedSymbolTable() throws Exception {
+		SymbolTable symbols = new SymbolTable();
+		SourceBatch batch = new SourceBatch().options(new ParseOptions().symbolTable(symbols));
+		File[] files = new File("test/resources/idempotency").listFiles();
+		for (File f : files) {
+			if (f.getName().endsWith(".java")) batch.add(f, Charsets.UTF_8);
+		}
+		
+		final Map<String, String> seen = Maps.newHashMap();
+		for (Source source : batch.parse(4)) {
+			for (Node node : source.getNodes()) {
+				node.accept(new ForwardingAstVisitor() {
+					@Override public boolean visitIdentifier(Identifier node) {
+						String name = node.astValue();
+						if (!seen.containsKey(name)) seen.put(name, name);
+						assertSame(name, seen.get(name));
+						return false;
+					}
+				});
+			}
+		}
+		assertFalse(seen.isEmpty());
+		assertTrue(symbols.size() > 0);
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import lombok.ast.Node;
+import lombok.ast.printer.SourcePrinter;
+import lombok.ast.printer.StructureFormatter;
+
+/**
+ * Prints the nodes of a source as a structure dump with positions, to compare the outcome of two ways of parsing the same input.
+ */
+final class StructurePrinting {
+	private StructurePrinting() {}
+	
+	static String print(Source source) {
+		StructureFormatter formatter = StructureFormatter.formatterWithPositions();
+		for (Node node : source.getNodes()) node.accept(new SourcePrinter(formatter));
+		return formatter.finish();
+	}
+	
+	/**
+	 * Like {@link #print(Source)}, but also lists the source structures of each node.
+	 */
+	static String printWithStructures(Source source) {
+		StructureFormatter formatter = StructureFormatter.formatterWithEverything(source);
+		for (Node node : source.getNodes()) node.accept(new SourcePrinter(formatter));
+		return formatter.finish();
+	}
+}
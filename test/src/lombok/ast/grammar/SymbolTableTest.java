@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class SymbolTableTest {
+	@Test
+	public void testIntern() {
+		SymbolTable table = new SymbolTable();
+		String first = new String("String");
+		String second = new String("String");
+		assertSame(first, table.intern(first));
+		assertSame(first, table.intern(second));
+		assertSame(first, table.intern("String"));
+		assertNull(table.intern(null));
+		assertEquals(1, table.size());
+	}
+	
+	@Test
+	public void testKeywordCheckMatchesKeywordList() {
+		for (String keyword : BasicsParser.KEYWORDS) {
+			assertTrue(keyword, BasicsParser.isKeyword(keyword));
+			assertTrue(keyword, BasicsParser.isKeyword(new String(keyword)));
+			for (String variant : new String[] {keyword + "s", keyword.substring(1), keyword.toUpperCase(), "x" + keyword.substring(1)}) {
+				assertEquals(variant, BasicsParser.KEYWORDS.contains(variant), BasicsParser.isKeyword(variant));
+			}
+		}
+		for (String identifier : new String[] {"", "i", "String", "var", "enumerate", "Override", "in", "fo", "trie", "synchronize"}) {
+			assertFalse(identifier, BasicsParser.isKeyword(identifier));
+		}
+	}
+}
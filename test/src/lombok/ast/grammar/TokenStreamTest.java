@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2012 The Project Lombok Authors.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+
+import lombok.ast.grammar.RunForEachFileInDirRunner.DirDescriptor;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(RunForEachFileInDirRunner.class)
+public class TokenStreamTest extends RunForEachFileInDirRunner.SourceFileBasedTester {
+	@Override
+	protected Collection<DirDescriptor> getDirDescriptors() {
+		return Collections.singleton(DirDescriptor.of(new File("test/resources/idempotency"), true));
+	}
+	
+	@Test
+	public void testTriviaMatchesGrammar(Source source) {
+		assertTriviaMatchesGrammar(source.getRawInput());
+	}
+	
+	@Test
+	public void testIdentifiersMatchGrammar(Source source) {
+		String text = source.getRawInput();
+		TokenStream tokens = TokenStream.lex(text);
+		for (int t = 0; t < tokens.getCount(); t++) {
+			if (tokens.getKind(t) != TokenStream.IDENTIFIER) continue;
+			int start = tokens.getStart(t);
+			assertTrue(Character.isJavaIdentifierStart(text.charAt(start)));
+			int end = start + 1;
+			while (end < text.length() && Character.isJavaIdentifierPart(text.charAt(end))) end++;
+			assertEquals(end, tokens.getEnd(t));
+		}
+	}
+	
+	@Test
+	public void testComments() {
+		String text = "a /* b */ c // d\r\ne /** f */";
+		TokenStream tokens = TokenStream.lex(text);
+		assertEquals(3, tokens.getCount());
+		assertEquals(3, tokens.getCommentCount());
+		assertEquals("/* b */", comment(text, tokens, 0));
+		assertEquals("// d\r\n", comment(text, tokens, 1));
+		assertEquals("/** f */", comment(text, tokens, 2));
+		assertEquals(1, tokens.firstCommentFrom(3));
+		assertEquals(10, tokens.triviaEnd(1));
+		assertEquals(18, tokens.triviaEnd(11));
+		assertEquals(-1, tokens.triviaEnd(4));
+		assertTriviaMatchesGrammar(text);
+	}
+	
+	@Test
+	public void testLiteralsHideComments() {
+		String text = "s = \"/* {\"; c = '\\''; // }\n";
+		TokenStream tokens = TokenStream.lex(text);
+		assertEquals(1, tokens.getCommentCount());
+		assertEquals(TokenStream.STRING, tokens.getKind(2));
+		assertEquals("\"/* {\"", text.substring(tokens.getStart(2), tokens.getEnd(2)));
+		assertEquals(TokenStream.CHARACTER, tokens.getKind(6));
+		assertEquals("'\\''", text.substring(tokens.getStart(6), tokens.getEnd(6)));
+		assertTriviaMatchesGrammar(text);
+	}
+	
+	@Test
+	public void testUnterminatedComment() {
+		String text = "a /* b { c";
+		TokenStream tokens = TokenStream.lex(text);
+		assertEquals(2, tokens.getCount());
+		assertEquals(0, tokens.getCommentCount());
+		assertEquals(TokenStream.UNTERMINATED_COMMENT, tokens.getKind(1));
+		assertEquals(text.length(), tokens.getEnd(1));
+		assertTriviaMatchesGrammar(text);
+	}
+	
+	private static String comment(String text, TokenStream tokens, int comment) {
+		return text.substring(tokens.getCommentStart(comment), tokens.getCommentEnd(comment));
+	}
+	
+	/**
+	 * Wherever the token stream says it's in between tokens, the whitespace and comments it skips must be what {@link BasicsParser#optWS()} matches.
+	 */
+	private static void assertTriviaMatchesGrammar(String text) {
+		TokenStream tokens = TokenStream.lex(text);
+		for (int i = 0; i <= text.length(); i++) {
+			int end = tokens.triviaEnd(i);
+			if (end != -1) assertEquals("trivia at " + i, grammarTriviaEnd(text, i), end);
+		}
+		for (int t = 0; t < tokens.getCount(); t++) {
+			assertEquals(tokens.getStart(t), tokens.triviaEnd(tokens.getStart(t)));
+			if (tokens.getEnd(t) - tokens.getStart(t) > 1) assertEquals(-1, tokens.triviaEnd(tokens.getStart(t) + 1));
+		}
+	}
+	
+	private static int grammarTriviaEnd(String text, int i) {
+		int len = text.length();
+		while (i < len) {
+			char c = text.charAt(i);
+			if (c == ' ' || c == '\t' || c == '\f' || c == '\r' || c == '\n') {
+				i++;
+			} else if (text.startsWith("//", i)) {
+				for (i += 2; i < len && text.charAt(i) != '\r' && text.charAt(i) != '\n'; i++);
+			} else if (text.startsWith("/*", i) && text.indexOf("*/", i + 2) != -1) {
+				i = text.indexOf("*/", i + 2) + 2;
+			} else {
+				break;
+			}
+		}
+		return i;
+	}
+}